@@ -1,7 +1,6 @@
 module org.game.thegreatescape {
   requires javafx.controls;
   requires com.fasterxml.jackson.databind;
-    requires org.json;
     requires java.logging;
 
     exports org.game.thegreatescape.levelEditor;
@@ -1,14 +1,32 @@
 package org.game.thegreatescape.levelEditor;
 
+import org.game.thegreatescape.model.GameData;
+import org.game.thegreatescape.model.GameItem;
+
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
 
 /**
  * The CanvasData class represents data and functions for adding and deleting them from canvas.
+ * Images are also indexed by the cell of their top left corner, so the images at a position
+ * or in a region are found without scanning all images of the level.
+ * Removed images leave the index at once and the list of all images only when it is requested,
+ * so removing many images, e.g. when a bulk edit is undone, does not shift the list once per image.
  */
 
 public class CanvasData {
+    public static final int CELL_SIZE = 64; // Size of the cells of the index
 
     private ArrayList<ImageData> imgList = new ArrayList<ImageData>();
+    private HashMap<Long, ArrayList<ImageData>> cells = new HashMap<>(); // Images by cell, in the order they were added
+    private long nextOrder = 0;
+    private int removed = 0; // Images removed from the index but still in the list
+    private int maxImageWidth = 0; // Largest image size, limits how far a region query looks back
+    private int maxImageHeight = 0;
+    private int lastQueryExamined = 0; // Images compared by the last region query
 
     /**
      * Adds an imageData object to the list.
@@ -16,7 +34,52 @@ public class CanvasData {
      * @param img The imageData object to add.
      */
     public void addImage(ImageData img) {
+        if (img.removed) {
+            compact();
+        }
+        img.removed = false;
         imgList.add(img);
+        cells.computeIfAbsent(cellKey(cellOf(img.getX()), cellOf(img.getY())), k -> new ArrayList<>(2)).add(img);
+        img.order = nextOrder++;
+        maxImageWidth = Math.max(maxImageWidth, img.getImgWidth());
+        maxImageHeight = Math.max(maxImageHeight, img.getImgHeight());
+    }
+
+    /**
+     * Adds the images of every item of the level, in the order of the level file, so they are drawn like in the game.
+     * The images of an item share one copy of its metadata without the coordinates.
+     *
+     * @param level The level, e.g. read from a level file.
+     */
+    public void addLevel(GameData level) {
+        int count = 0;
+        for (GameItem item : level.tiles.values()) {
+            count += item.coordCount();
+        }
+        imgList.ensureCapacity(imgList.size() + count);
+        if (cells.isEmpty()) {
+            cells = new HashMap<>(count * 4 / 3 + 1); // No rehashing while the level is indexed
+        }
+        for (var entry : level.tiles.entrySet()) {
+            GameItem item = entry.getValue();
+            GameItem metadata = item.copy();
+            metadata.setPackedCoords(null);
+            for (int i = 0; i < item.coordCount(); i++) {
+                addImage(new ImageData(item.fileName, item.x(i), item.y(i), item.height, item.width, entry.getKey(), metadata));
+            }
+        }
+    }
+
+    /**
+     * Removes all images.
+     */
+    public void clear() {
+        imgList.clear();
+        cells.clear();
+        nextOrder = 0;
+        removed = 0;
+        maxImageWidth = 0;
+        maxImageHeight = 0;
     }
 
     /**
@@ -27,13 +90,120 @@ public class CanvasData {
      * @return true if the image was successfully removed, false otherwise.
      */
     public boolean removeImage(double x, double y) {
-        for (ImageData img : imgList) {
+        return removeImageAt(x, y) != null;
+    }
+
+    /**
+     * Removes the first added image at the given coordinates and returns it, e.g. to repaint the region it covered.
+     *
+     * @param x The x-coordinate of the image.
+     * @param y The y-coordinate of the image.
+     * @return The removed image, or null if there is no image at the coordinates.
+     */
+    public ImageData removeImageAt(double x, double y) {
+        long key = cellKey(cellOf(x), cellOf(y));
+        ArrayList<ImageData> cell = cells.get(key);
+        if (cell == null) {
+            return null;
+        }
+        for (ImageData img : cell) {
             if (img.getX() == x && img.getY() == y) {
-                imgList.remove(img);
-                return true;
+                remove(key, cell, img);
+                return img;
             }
         }
-        return false;
+        return null;
+    }
+
+    /**
+     * Removes the last added image with the given name and item at the given coordinates, e.g. to undo placing it.
+     *
+     * @param x        The x-coordinate of the image.
+     * @param y        The y-coordinate of the image.
+     * @param name     The name of the image.
+     * @param itemName The name of the item of the image, or null for placed images.
+     * @return The removed image, or null if there is no such image at the coordinates.
+     */
+    public ImageData removeLastImageAt(double x, double y, String name, String itemName) {
+        long key = cellKey(cellOf(x), cellOf(y));
+        ArrayList<ImageData> cell = cells.get(key);
+        if (cell == null) {
+            return null;
+        }
+        for (int i = cell.size() - 1; i >= 0; i--) {
+            ImageData img = cell.get(i);
+            if (img.getX() == x && img.getY() == y && img.getName().equals(name) && Objects.equals(img.getItemName(), itemName)) {
+                remove(key, cell, img);
+                return img;
+            }
+        }
+        return null;
+    }
+
+    private void remove(long key, ArrayList<ImageData> cell, ImageData img) {
+        cell.remove(img);
+        if (cell.isEmpty()) {
+            cells.remove(key);
+        }
+        img.removed = true;
+        removed++;
+    }
+
+    /**
+     * Drops the removed images from the list of all images in one pass.
+     */
+    private void compact() {
+        if (removed > 0) {
+            imgList.removeIf(img -> img.removed);
+            removed = 0;
+        }
+    }
+
+    /**
+     * Get the images overlapping the given region, in the order they have to be drawn.
+     * Only the cells around the region are searched.
+     *
+     * @param x      The x-coordinate of the region.
+     * @param y      The y-coordinate of the region.
+     * @param width  The width of the region.
+     * @param height The height of the region.
+     * @return The overlapping images, in the order they were added.
+     */
+    public List<ImageData> getImagesIn(double x, double y, double width, double height) {
+        ArrayList<ImageData> found = new ArrayList<>();
+        int examined = 0;
+        int minCol = cellOf(x - maxImageWidth);
+        int minRow = cellOf(y - maxImageHeight);
+        int maxCol = cellOf(x + width);
+        int maxRow = cellOf(y + height);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                ArrayList<ImageData> cell = cells.get(cellKey(col, row));
+                if (cell == null) {
+                    continue;
+                }
+                examined += cell.size();
+                for (ImageData img : cell) {
+                    if (img.getX() < x + width && img.getX() + img.getImgWidth() > x
+                            && img.getY() < y + height && img.getY() + img.getImgHeight() > y) {
+                        found.add(img);
+                    }
+                }
+            }
+        }
+        lastQueryExamined = examined;
+        found.sort(Comparator.comparingLong(img -> img.order));
+        return found;
+    }
+
+    /**
+     * Get the number of images compared by the last region query, which depends on the size of the region
+     * and not on the size of the map.
+     *
+     * @return The number of compared images.
+     */
+    public int getLastQueryExamined() {
+        return lastQueryExamined;
     }
 
     /**
@@ -42,8 +212,15 @@ public class CanvasData {
      * @return The list of imageData objects.
      */
     public ArrayList<ImageData> getImagesList() {
+        compact();
         return imgList;
     }
 
+    private static int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate / CELL_SIZE);
+    }
 
+    private static long cellKey(int col, int row) {
+        return ((long) col << 32) | (row & 0xFFFFFFFFL);
+    }
 }
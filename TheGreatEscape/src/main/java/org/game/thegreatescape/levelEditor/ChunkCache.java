@@ -0,0 +1,141 @@
+package org.game.thegreatescape.levelEditor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The ChunkCache class keeps the rendered chunks of a map. The map is split into square chunks of
+ * {@link #CHUNK_SIZE} pixels, which are rendered on demand and kept until they are changed or evicted.
+ * At most the given number of chunks is kept, the least recently used chunk is evicted first,
+ * so the memory does not depend on the size of the map.
+ *
+ * @param <T> The type of a rendered chunk, e.g. an image.
+ */
+public class ChunkCache<T> {
+    public static final int CHUNK_SIZE = 256; // Size of a chunk in map pixels
+    public static final int DEFAULT_CAPACITY = 64; // 64 chunks of 256 x 256 ARGB pixels are 16 MB
+
+    /**
+     * Renders one chunk of the map.
+     *
+     * @param <T> The type of a rendered chunk.
+     */
+    @FunctionalInterface
+    public interface Renderer<T> {
+        /**
+         * Renders the chunk in the given column and row.
+         *
+         * @param col The column of the chunk.
+         * @param row The row of the chunk.
+         * @return The rendered chunk, or null if the chunk is empty.
+         */
+        T render(int col, int row);
+    }
+
+    private final int capacity;
+    private final Renderer<T> renderer;
+    private final LinkedHashMap<Long, T> chunks; // Rendered chunks in access order, null for empty chunks
+    private long hits;
+    private long renders;
+
+    /**
+     * Constructor of a ChunkCache keeping at most the given number of chunks.
+     *
+     * @param capacity The maximum number of kept chunks.
+     * @param renderer The function rendering a chunk.
+     */
+    public ChunkCache(int capacity, Renderer<T> renderer) {
+        this.capacity = capacity;
+        this.renderer = renderer;
+        this.chunks = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, T> eldest) {
+                return size() > ChunkCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Get the rendered chunk in the given column and row, rendering it if it is not kept.
+     *
+     * @param col The column of the chunk.
+     * @param row The row of the chunk.
+     * @return The rendered chunk, or null if the chunk is empty.
+     */
+    public T get(int col, int row) {
+        long key = key(col, row);
+        T chunk = chunks.get(key);
+        if (chunk != null || chunks.containsKey(key)) {
+            hits++;
+            return chunk;
+        }
+        renders++;
+        chunk = renderer.render(col, row);
+        chunks.put(key, chunk);
+        return chunk;
+    }
+
+    /**
+     * Forgets the chunks overlapping the given region of the map, so they are rendered again on the next request.
+     *
+     * @param x      The x-coordinate of the region.
+     * @param y      The y-coordinate of the region.
+     * @param width  The width of the region.
+     * @param height The height of the region.
+     */
+    public void invalidate(double x, double y, double width, double height) {
+        for (int row = chunkOf(y); row <= chunkOf(y + height - 1); row++) {
+            for (int col = chunkOf(x); col <= chunkOf(x + width - 1); col++) {
+                chunks.remove(key(col, row));
+            }
+        }
+    }
+
+    /**
+     * Forgets all chunks.
+     */
+    public void clear() {
+        chunks.clear();
+    }
+
+    /**
+     * Checks if the chunk is kept.
+     *
+     * @param col The column of the chunk.
+     * @param row The row of the chunk.
+     * @return true if the chunk is rendered and was not evicted or invalidated.
+     */
+    public boolean isCached(int col, int row) {
+        return chunks.containsKey(key(col, row));
+    }
+
+    /**
+     * Get the chunk containing the given map coordinate.
+     *
+     * @param coordinate The x or y coordinate.
+     * @return The column or row of the chunk.
+     */
+    public static int chunkOf(double coordinate) {
+        return (int) Math.floor(coordinate / CHUNK_SIZE);
+    }
+
+    public int size() {
+        return chunks.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getRenders() {
+        return renders;
+    }
+
+    private static long key(int col, int row) {
+        return ((long) col << 32) | (row & 0xFFFFFFFFL);
+    }
+}
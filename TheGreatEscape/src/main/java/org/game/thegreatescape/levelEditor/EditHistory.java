@@ -0,0 +1,285 @@
+package org.game.thegreatescape.levelEditor;
+
+import javafx.geometry.Rectangle2D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.logging.Logger;
+
+/**
+ * The EditHistory class records the edits of the canvas data, so they can be undone and redone.
+ * <p>
+ * The commands are kept in one int array. A command is a header of its kind and the number of its edits,
+ * followed by four ints per edit: the operation, the type of the image and its coordinates.
+ * The types are the distinct images, e.g. a sprite or an item of an opened level, and are kept once.
+ * All edits between {@link #begin(int)} and {@link #end()}, e.g. of one drag stroke, are coalesced into one command.
+ * When the history gets larger than its capacity, the oldest commands are forgotten.
+ */
+public class EditHistory {
+    Logger logger = Logger.getLogger(EditHistory.class.getName());
+
+    // Kinds of commands
+    public static final int PLACE = 1;
+    public static final int REMOVE = 2;
+    public static final int FILL = 3;
+
+    public static final int DEFAULT_CAPACITY = 1 << 20; // Ints of all commands, 4 MB
+    private static final int HEADER = 2; // Kind and number of edits
+    private static final int EDIT = 4; // Operation, type, x and y
+
+    private final int capacity;
+    private int[] log = new int[1024]; // Encoded commands
+    private int size = 0; // Used ints of the log
+    private int[] starts = new int[64]; // Offset of every command in the log
+    private int commands = 0; // Number of recorded commands
+    private int applied = 0; // Number of commands which are not undone
+    private int open = -1; // Offset of the command recording edits, or -1
+
+    private final ArrayList<ImageData> types = new ArrayList<>(); // Prototype of every type
+    private final HashMap<String, Integer> typeIds = new HashMap<>();
+
+    /**
+     * Constructor of an EditHistory keeping at most the given number of ints.
+     *
+     * @param capacity The maximum size of the history in ints, the last command is kept even if it is larger.
+     */
+    public EditHistory(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Starts a command, the following edits are recorded in it until {@link #end()}.
+     * The undone commands are forgotten.
+     *
+     * @param kind The kind of the command, e.g. {@link #PLACE}.
+     */
+    public void begin(int kind) {
+        end();
+        commands = applied;
+        size = commands > 0 ? endOf(commands - 1) : 0;
+        open = size;
+        ensureLog(HEADER);
+        log[size++] = kind;
+        log[size++] = 0;
+    }
+
+    /**
+     * Ends the current command. An empty command is forgotten.
+     */
+    public void end() {
+        if (open < 0) {
+            return;
+        }
+        if (log[open + 1] == 0) {
+            size = open;
+        } else {
+            if (commands == starts.length) {
+                starts = Arrays.copyOf(starts, commands * 2);
+            }
+            starts[commands++] = open;
+            applied = commands;
+            trim();
+        }
+        open = -1;
+    }
+
+    /**
+     * Adds the image to the canvas data and records it.
+     * Outside of a command, the image is recorded as a command of its own.
+     *
+     * @param canvasData The canvas data.
+     * @param img        The image.
+     */
+    public void place(CanvasData canvasData, ImageData img) {
+        canvasData.addImage(img);
+        record(PLACE, img);
+    }
+
+    /**
+     * Removes the first added image at the given coordinates from the canvas data and records it.
+     * Outside of a command, the removal is recorded as a command of its own.
+     *
+     * @param canvasData The canvas data.
+     * @param x          The x-coordinate of the image.
+     * @param y          The y-coordinate of the image.
+     * @return The removed image, or null if there is no image at the coordinates.
+     */
+    public ImageData remove(CanvasData canvasData, double x, double y) {
+        ImageData img = canvasData.removeImageAt(x, y);
+        if (img != null) {
+            record(REMOVE, img);
+        }
+        return img;
+    }
+
+    /**
+     * Undoes the last applied command. The edits are applied to the canvas data in reverse order,
+     * images which were removed are added again on top of the other images.
+     *
+     * @param canvasData The canvas data.
+     * @return The region of the map covering all edits, or null if there is nothing to undo.
+     */
+    public Rectangle2D undo(CanvasData canvasData) {
+        end();
+        if (applied == 0) {
+            return null;
+        }
+        applied--;
+        int start = starts[applied] + HEADER;
+        Bounds bounds = new Bounds();
+        for (int i = endOf(applied) - EDIT; i >= start; i -= EDIT) {
+            apply(canvasData, log[i] == PLACE ? REMOVE : PLACE, i, bounds);
+        }
+        logger.info("Undone command with " + log[starts[applied] + 1] + " edits.");
+        return bounds.toRectangle();
+    }
+
+    /**
+     * Redoes the last undone command.
+     *
+     * @param canvasData The canvas data.
+     * @return The region of the map covering all edits, or null if there is nothing to redo.
+     */
+    public Rectangle2D redo(CanvasData canvasData) {
+        end();
+        if (applied == commands) {
+            return null;
+        }
+        Bounds bounds = new Bounds();
+        for (int i = starts[applied] + HEADER; i < endOf(applied); i += EDIT) {
+            apply(canvasData, log[i], i, bounds);
+        }
+        logger.info("Redone command with " + log[starts[applied] + 1] + " edits.");
+        applied++;
+        return bounds.toRectangle();
+    }
+
+    /**
+     * Forgets all commands, e.g. when another level is opened.
+     */
+    public void clear() {
+        size = 0;
+        commands = 0;
+        applied = 0;
+        open = -1;
+        types.clear();
+        typeIds.clear();
+    }
+
+    public boolean canUndo() {
+        return applied > 0 || open >= 0 && log[open + 1] > 0;
+    }
+
+    public boolean canRedo() {
+        return open < 0 && applied < commands;
+    }
+
+    public int getCommands() {
+        return commands;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void record(int operation, ImageData img) {
+        boolean single = open < 0;
+        if (single) {
+            begin(operation);
+        }
+        ensureLog(EDIT);
+        log[size++] = operation;
+        log[size++] = typeOf(img);
+        log[size++] = (int) img.getX();
+        log[size++] = (int) img.getY();
+        log[open + 1]++;
+        if (single) {
+            end();
+        }
+    }
+
+    private void apply(CanvasData canvasData, int operation, int i, Bounds bounds) {
+        ImageData type = types.get(log[i + 1]);
+        int x = log[i + 2];
+        int y = log[i + 3];
+        if (operation == PLACE) {
+            canvasData.addImage(new ImageData(type.getName(), x, y, type.getImgHeight(), type.getImgWidth(),
+                    type.getItemName(), type.getItem()));
+        } else {
+            canvasData.removeLastImageAt(x, y, type.getName(), type.getItemName());
+        }
+        bounds.add(x, y, type.getImgWidth(), type.getImgHeight());
+    }
+
+    private int typeOf(ImageData img) {
+        String key = img.getName() + '\n' + img.getItemName() + '\n' + img.getImgWidth() + 'x' + img.getImgHeight();
+        Integer id = typeIds.get(key);
+        if (id == null) {
+            id = types.size();
+            types.add(img);
+            typeIds.put(key, id);
+        }
+        return id;
+    }
+
+    /**
+     * Get the end offset of the recorded command.
+     */
+    private int endOf(int command) {
+        return starts[command] + HEADER + EDIT * log[starts[command] + 1];
+    }
+
+    private void ensureLog(int ints) {
+        if (size + ints > log.length) {
+            log = Arrays.copyOf(log, Math.max(size + ints, log.length * 2));
+        }
+    }
+
+    /**
+     * Forgets the oldest commands until the history fits into its capacity, keeping at least the last command.
+     */
+    private void trim() {
+        int dropped = 0;
+        while (dropped + 1 < commands && size - starts[dropped] > capacity) {
+            dropped++;
+        }
+        if (dropped == 0) {
+            return;
+        }
+        int shift = starts[dropped];
+        System.arraycopy(log, shift, log, 0, size - shift);
+        size -= shift;
+        for (int c = dropped; c < commands; c++) {
+            starts[c - dropped] = starts[c] - shift;
+        }
+        commands -= dropped;
+        applied -= dropped;
+        logger.info("Forgot " + dropped + " oldest commands of the edit history.");
+    }
+
+    /**
+     * The bounding box of the edits of a command.
+     */
+    private static class Bounds {
+        private double minX = Double.MAX_VALUE;
+        private double minY = Double.MAX_VALUE;
+        private double maxX = -Double.MAX_VALUE;
+        private double maxY = -Double.MAX_VALUE;
+
+        private void add(double x, double y, double width, double height) {
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x + width);
+            maxY = Math.max(maxY, y + height);
+        }
+
+        private Rectangle2D toRectangle() {
+            return minX <= maxX ? new Rectangle2D(minX, minY, maxX - minX, maxY - minY) : Rectangle2D.EMPTY;
+        }
+    }
+}
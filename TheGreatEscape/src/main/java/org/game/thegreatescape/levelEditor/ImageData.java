@@ -1,7 +1,11 @@
 package org.game.thegreatescape.levelEditor;
 
+import org.game.thegreatescape.model.GameItem;
+
 /**
  * The imageData class represents data associated with an image, including its name, position, and sizes.
+ * Images opened from a level file also keep the name and the metadata of the item they belong to,
+ * so the level is written back with the same doors and flags.
  */
 
 public class ImageData {
@@ -10,6 +14,10 @@ public class ImageData {
     private final double y;
     private final int imgHeight;
     private final int imgWidth;
+    private final String itemName; // Name of the item in the level file, or null for placed images
+    private final GameItem item; // Metadata of the item without coordinates, shared by all its images, or null
+    long order; // Drawing order in the canvas data the image was added to
+    boolean removed; // Removed from the canvas data, but maybe still in its list of all images
 
     /**
      * Constructor of an ImageData object.
@@ -21,11 +29,28 @@ public class ImageData {
      * @param imgWidth  The width of the image.
      */
     public ImageData(String name, double x, double y, int imgHeight, int imgWidth) {
+        this(name, x, y, imgHeight, imgWidth, null, null);
+    }
+
+    /**
+     * Constructor of an ImageData object belonging to an item of a level file.
+     *
+     * @param name      The name of the image.
+     * @param x         The x-coordinate of the image's position.
+     * @param y         The y-coordinate of the image's position.
+     * @param imgHeight The height of the image.
+     * @param imgWidth  The width of the image.
+     * @param itemName  The name of the item in the level file.
+     * @param item      The metadata of the item, e.g. its flags and the target of a door.
+     */
+    public ImageData(String name, double x, double y, int imgHeight, int imgWidth, String itemName, GameItem item) {
         this.name = name;
         this.x = x;
         this.y = y;
         this.imgHeight = imgHeight;
         this.imgWidth = imgWidth;
+        this.itemName = itemName;
+        this.item = item;
     }
 
     public double getX() {
@@ -44,4 +69,12 @@ public class ImageData {
     public int getImgWidth() {
         return imgWidth;
     }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public GameItem getItem() {
+        return item;
+    }
 }
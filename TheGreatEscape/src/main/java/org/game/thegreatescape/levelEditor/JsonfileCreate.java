@@ -1,36 +1,56 @@
 package org.game.thegreatescape.levelEditor;
 
-import java.io.File;
-import java.io.FileWriter;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.game.thegreatescape.model.GameData;
+import org.game.thegreatescape.model.GameItem;
+
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 /**
  * The JsonfileCreate class creates JSON files
  * containing data about images placed on the canvas.
+ * <p>
+ * The images are grouped by name in one pass and written with Jackson's streaming generator,
+ * so the export time is linear in the number of images and nothing but the groups is kept in memory.
+ * The files are levels which the game can load, the flags of every tile are taken from the levels of the game.
  */
 public class JsonfileCreate {
-    Logger logger = Logger.getLogger(CanvasData.class.getName());
+    Logger logger = Logger.getLogger(JsonfileCreate.class.getName());
     private static int counter = 1;
-    private final ArrayList<String> names = new ArrayList<String>();
-    private final String START_STRING = "{\"tiles\" : {";
-    private final StringBuilder sb = new StringBuilder(START_STRING);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    // Collision and touchability of every known image, by file name
+    private final Map<String, GameItem> tileTypes = new HashMap<>();
 
     /**
-     * Get image names from the given array of image data.
+     * Learns the flags of the tiles of the given level, so exported tiles with the same image get the same flags.
+     * Doors and the end of the game are skipped, as they need a target which the editor does not know.
      *
-     * @param array The array of imageData objects.
-     * @return ArrayList of image names.
+     * @param level The level.
      */
-    public ArrayList<String> getNamesFromArray(ArrayList<ImageData> array) {
-        for (ImageData data : array) {
-            if (!names.contains(data.getName().replace(".png", ""))) {
-                names.add(data.getName().replace(".png", ""));
+    public void learnTileTypes(GameData level) {
+        for (GameItem item : level.tiles.values()) {
+            if (item.fileName != null && !item.isDoorToTheNextLevel && !item.isTheEnd) {
+                tileTypes.putIfAbsent(item.fileName, item);
             }
         }
-        logger.info("Names were successfully written");
-        return names;
     }
 
     /**
@@ -39,82 +59,134 @@ public class JsonfileCreate {
      * @param imgList The list of imageData objects.
      * @return JSON string representation of the image data.
      */
-    public String toString(ArrayList<ImageData> imgList) {
-        jsonStringBuilder(imgList);
-        return sb.toString();
+    public String toString(List<ImageData> imgList) {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            write(imgList, generator);
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to a string failed", e);
+        }
+        return writer.toString();
     }
 
     /**
-     * Builds the JSON string representation of the image data.
+     * Writes the level of the given images with the generator.
+     * Every item becomes one tile with the coordinates of all its images, in the order of the first image.
+     * Images opened from a level file belong to their item and keep its metadata,
+     * placed images belong to the item named after their image.
      *
-     * @param imgList The list of imageData objects.
+     * @param imgList   The list of imageData objects.
+     * @param generator The generator.
+     * @throws IOException If the level cannot be written.
      */
-    public void jsonStringBuilder(ArrayList<ImageData> imgList) {
-        getNamesFromArray(imgList);
-
-        for (String name : names) {
-            sb.append("\"" + name + "\": {");
-            sb.append("\"fileName\": \"" + name + ".png\",");
-            sb.append("\"width\": 64,");
-            sb.append("\"height\": 64,");
-            sb.append("\"coords\": [");
-
-            // Put coords
-            for (ImageData obj : imgList) {
-                if (name.equals(obj.getName().replace(".png", ""))) {
-                    sb.append("{\"x\":" + obj.getX() + ",\"y\":" + obj.getY() + "},");
-                    logger.info("Added coordinates for image " + name + ": x=" + obj.getX() + ", y=" + obj.getY());
+    public void write(List<ImageData> imgList, JsonGenerator generator) throws IOException {
+        // Group the images by item: count them, then sort their indexes by group
+        Map<String, Integer> groups = new LinkedHashMap<>();
+        int[] groupOf = new int[imgList.size()];
+        int[] counts = new int[16];
+        GameItem[] items = new GameItem[16]; // Metadata of every group, from its first image which has some
+        for (int i = 0; i < imgList.size(); i++) {
+            ImageData img = imgList.get(i);
+            Integer group = groups.get(itemNameOf(img));
+            if (group == null) {
+                group = groups.size();
+                groups.put(itemNameOf(img), group);
+                if (group == counts.length) {
+                    counts = Arrays.copyOf(counts, counts.length * 2);
+                    items = Arrays.copyOf(items, items.length * 2);
                 }
             }
-
-            // Delete last comma
-            if (sb.charAt(sb.length() - 1) == ',') {
-                sb.deleteCharAt(sb.length() - 1);
+            groupOf[i] = group;
+            counts[group]++;
+            if (items[group] == null) {
+                items[group] = img.getItem();
             }
-            sb.append("]");
-            sb.append("},");
         }
-
-        // Delete last comma
-        if (sb.charAt(sb.length() - 1) == ',') {
-            sb.deleteCharAt(sb.length() - 1);
+        int[] start = new int[groups.size() + 1];
+        for (int g = 0; g < groups.size(); g++) {
+            start[g + 1] = start[g] + counts[g];
+        }
+        int[] filled = Arrays.copyOf(start, groups.size());
+        int[] sorted = new int[imgList.size()];
+        for (int i = 0; i < imgList.size(); i++) {
+            sorted[filled[groupOf[i]]++] = i;
         }
 
-        sb.append("}");
-        sb.append("}");
+        generator.writeStartObject();
+        generator.writeObjectFieldStart("tiles");
+        for (Map.Entry<String, Integer> group : groups.entrySet()) {
+            int g = group.getValue();
+            ImageData first = imgList.get(sorted[start[g]]);
+            GameItem item = items[g];
+            GameItem type = item != null ? item : tileTypes.get(first.getName());
 
-        logger.info("JSON construction completed.");
+            generator.writeObjectFieldStart(group.getKey());
+            generator.writeStringField("fileName", first.getName());
+            generator.writeNumberField("width", first.getImgWidth());
+            generator.writeNumberField("height", first.getImgHeight());
+            generator.writeBooleanField("isCollision", type != null && type.isCollision);
+            generator.writeBooleanField("isTouchable", type != null && type.isTouchable);
+            if (item != null && item.isDoorToTheNextLevel) {
+                generator.writeBooleanField("isDoorToTheNextLevel", true);
+                generator.writeStringField("nextLevel", item.nextLevel);
+                generator.writeNumberField("nextX", item.nextX);
+                generator.writeNumberField("nextY", item.nextY);
+            }
+            if (item != null && item.isTheEnd) {
+                generator.writeBooleanField("isTheEnd", true);
+            }
+            generator.writeArrayFieldStart("coords");
+            for (int i = start[g]; i < start[g + 1]; i++) {
+                ImageData img = imgList.get(sorted[i]);
+                generator.writeStartObject();
+                generator.writeNumberField("x", (int) Math.round(img.getX()));
+                generator.writeNumberField("y", (int) Math.round(img.getY()));
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+        logger.info("JSON construction completed: " + groups.size() + " tiles, " + imgList.size() + " images.");
     }
 
     /**
-     * Creates a JSON file with the provided string content.
+     * Writes the level of the given images to the file through a buffered file channel.
      *
-     * @param string The JSON string content.
+     * @param imgList The list of imageData objects.
+     * @param path    The path of the file, which is replaced if it exists.
+     * @throws IOException If the file cannot be written.
      */
-    public void createJsonFile(String string) {
-        File file = new File(counter + "_Json.json");
+    public void export(List<ImageData> imgList, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+             JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            write(imgList, generator);
+        }
+    }
 
+    /**
+     * Creates a numbered JSON file with the level of the given images.
+     *
+     * @param imgList The list of imageData objects.
+     * @return The path of the created file, or null if it cannot be written.
+     */
+    public Path createJsonFile(List<ImageData> imgList) {
+        Path path = Paths.get(counter + "_Json.json");
         try {
-            if (file.createNewFile()) {
-                logger.info("File created: " + file.getName());
-                System.out.println("File created: " + file.getName());
-                counter++;
-            } else {
-                logger.warning("File already exists: " + file.getName());
-            }
+            export(imgList, path);
+            counter++;
+            logger.info("Successfully wrote to the file: " + path);
+            return path;
         } catch (IOException e) {
-            logger.severe("An error occurred while creating file: " + file.getName());
-            e.printStackTrace();
+            logger.severe("An error occurred while writing to file: " + path + " " + e);
+            return null;
         }
+    }
 
-        try {
-            FileWriter fileWrite = new FileWriter(file.getName());
-            fileWrite.write(string);
-            fileWrite.close();
-            logger.info("Successfully wrote to the file: " + file.getName());
-        } catch (IOException a) {
-            logger.severe("An error occurred while writing to file: " + file.getName());
-            a.printStackTrace();
-        }
+    private static String itemNameOf(ImageData img) {
+        return img.getItemName() != null ? img.getItemName() : img.getName().replace(".png", "");
     }
 }
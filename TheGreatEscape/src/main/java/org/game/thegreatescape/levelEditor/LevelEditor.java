@@ -2,24 +2,42 @@ package org.game.thegreatescape.levelEditor;
 
 import javafx.application.Application;
 import javafx.geometry.Pos;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.Scene;
+import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Button;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.*;
+import javafx.scene.paint.Color;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import org.game.thegreatescape.model.GameData;
+import org.game.thegreatescape.model.LevelParser;
+import org.game.thegreatescape.model.LevelRepository;
+import org.game.thegreatescape.view.ImageCache;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.logging.Logger;
 
 /**
  * The LevelEditor class is an application for creating and editing levels
  * using a graphical interface. It allows users to place and delete images
- * on a canvas, and save the created level data as a JSON file.
+ * on a canvas, save the created level data as a JSON file and open existing level files.
+ * Every edit is recorded in the edit history and can be undone and redone.
  */
 
 public class LevelEditor extends Application {
@@ -33,17 +51,40 @@ public class LevelEditor extends Application {
     private final int ASIDE_ITEMS_SIZE = 64;
     private final int IMAGE_SIZE = 64;
     private final int LINE_APPEAR = 8;
+    private final double MIN_ZOOM = 0.5; // Visible chunks at the minimum zoom must fit into the chunk cache
+    private final double MAX_ZOOM = 2;
+    private final double ZOOM_STEP = 1.25;
+    private static final String[] LEVELS = {"firstLevel", "secondLevel", "thirdLevel", "fourthLevel"};
     // Styles
     private final String stl = "-fx-background-color: grey";
 
+    // Edit modes of the primary mouse button
+    private enum Mode { NONE, PUT, DELETE, FILL }
+
     // Data
     private final ArrayList<String> fileNames = new ArrayList<String>();
     private Image selectedImage;
     private String selectedImageName;
 
+    // Viewport over the map: map coordinates of the top left corner and screen pixels per map pixel
+    private double viewX = 0;
+    private double viewY = 0;
+    private double zoom = 1;
+    private double dragX; // Screen position of the last drag event while panning
+    private double dragY;
+    private Mode mode = Mode.NONE;
+    private double strokeX; // Map position where the current stroke or fill started
+    private double strokeY;
+    private final HashSet<Long> strokeCells = new HashSet<>(); // Positions edited by the current stroke
+
     // Classes
     private final CanvasData canvasData = new CanvasData();
+    private final ChunkCache<Image> chunkCache = new ChunkCache<>(ChunkCache.DEFAULT_CAPACITY, this::renderChunk);
+    private Canvas gridCanvas;
+    private Canvas canvas;
+    private Canvas chunkCanvas; // Offscreen canvas the chunks are rendered on
     private final JsonfileCreate jfc = new JsonfileCreate();
+    private final EditHistory history = new EditHistory(EditHistory.DEFAULT_CAPACITY);
 
     /**
      * Starts the application by initializing and displaying the item stage
@@ -54,6 +95,13 @@ public class LevelEditor extends Application {
     @Override
     public void start(Stage stage) {
         logger.info("Starting LevelEditor application...");
+        // Exported tiles get the flags of the same images in the levels of the game
+        for (String level : LEVELS) {
+            GameData gameData = LevelRepository.getShared().preload(level);
+            if (gameData != null) {
+                jfc.learnTileTypes(gameData);
+            }
+        }
         itemStage();
         canvasStage();
     }
@@ -80,6 +128,10 @@ public class LevelEditor extends Application {
         logger.info("Initializing and displaying canvas stage...");
         Stage secondStage = new Stage();
         Scene secondScene = new Scene(canvasRedactor());
+        secondScene.getAccelerators().put(new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN), this::undo);
+        secondScene.getAccelerators().put(new KeyCodeCombination(KeyCode.Y, KeyCombination.SHORTCUT_DOWN), this::redo);
+        secondScene.getAccelerators().put(new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN,
+                KeyCombination.SHIFT_DOWN), this::redo);
         secondStage.setResizable(false);
 
         secondStage.setScene(secondScene);
@@ -94,80 +146,230 @@ public class LevelEditor extends Application {
      */
     private Pane canvasRedactor() {
         logger.info("Creating canvas area for level editing...");
-        // Canvas
-        Canvas canvas = new Canvas(WIDTH_MAIN, HEIGHT_MAIN);
-        GraphicsContext gc = canvas.getGraphicsContext2D();
+        // Canvas, the viewport over the map. The grid is drawn on its own layer below the images
+        // and only drawn again when the view changes
+        gridCanvas = new Canvas(WIDTH_MAIN, HEIGHT_MAIN);
+        canvas = new Canvas(WIDTH_MAIN, HEIGHT_MAIN);
+        chunkCanvas = new Canvas(ChunkCache.CHUNK_SIZE, ChunkCache.CHUNK_SIZE);
 
-        writeLines(gc);
+        drawViewport();
         logger.info("lines were written.");
 
+        // Panning with the scroll wheel or by dragging with the secondary button, zooming with ctrl and the scroll wheel
+        canvas.setOnScroll(scrollEvent -> {
+            if (scrollEvent.isControlDown()) {
+                double factor = scrollEvent.getDeltaY() > 0 ? ZOOM_STEP : 1 / ZOOM_STEP;
+                zoomAt(scrollEvent.getX(), scrollEvent.getY(), factor);
+            } else {
+                panBy(-scrollEvent.getDeltaX(), -scrollEvent.getDeltaY());
+            }
+        });
+        // Editing with the primary button, all edits of one press are one command of the edit history
+        canvas.setOnMousePressed(mouseEvent -> {
+            dragX = mouseEvent.getX();
+            dragY = mouseEvent.getY();
+            if (mouseEvent.getButton() == MouseButton.PRIMARY) {
+                beginStroke(mouseEvent);
+            }
+        });
+        canvas.setOnMouseDragged(mouseEvent -> {
+            if (mouseEvent.getButton() == MouseButton.SECONDARY) {
+                panBy(dragX - mouseEvent.getX(), dragY - mouseEvent.getY());
+                dragX = mouseEvent.getX();
+                dragY = mouseEvent.getY();
+            } else if (mouseEvent.getButton() == MouseButton.PRIMARY) {
+                continueStroke(mouseEvent);
+            }
+        });
+        canvas.setOnMouseReleased(mouseEvent -> {
+            if (mouseEvent.getButton() == MouseButton.PRIMARY) {
+                endStroke(mouseEvent);
+            }
+        });
+
         // Buttons
         Button putButton = new Button("Put");
         Button deleteButton = new Button("Delete");
+        Button fillButton = new Button("Fill");
+        Button undoButton = new Button("Undo");
+        Button redoButton = new Button("Redo");
         Button saveButton = new Button("Create");
+        Button openButton = new Button("Open");
 
-        // Action for placing images from canvas
+        // Actions choosing what the primary button does: placing images along the stroke,
+        // deleting images along the stroke or filling the dragged rectangle with the selected image
         putButton.setOnAction(actionEvent -> {
             logger.info("put button was pressed.");
-            canvas.setOnMouseClicked(mouseEvent -> {
-                if (selectedImage != null) {
-                    double x = mouseEvent.getX();
-                    double y = mouseEvent.getY();
-
-                    double nearestX = Math.floor(x / 8) * 8;
-                    double nearestY = Math.floor(y / 8) * 8;
-
-                    logger.info("Placing image at coordinates: x = " + nearestX + ", y = " + nearestY);
-
-                    canvasData.addImage(new ImageData(selectedImageName, nearestX, nearestY, 64, 64));
-                    gc.drawImage(selectedImage, nearestX, nearestY, IMAGE_SIZE, IMAGE_SIZE);
-                }
-            });
+            mode = Mode.PUT;
         });
-
-        // Action for deleting images from canvas
         deleteButton.setOnAction(actionEvent -> {
             logger.info("Delete button was pressed.");
-
-            canvas.setOnMouseClicked(mouseEvent -> {
-                double x = mouseEvent.getX();
-                double y = mouseEvent.getY();
-
-                double nearestX = Math.floor(x / 8) * 8;
-                double nearestY = Math.floor(y / 8) * 8;
-
-                if (canvasData.removeImage(nearestX, nearestY)) {
-                    logger.info("Deleted image at coordinates: x=" + nearestX + ", y=" + nearestY);
-
-                    gc.clearRect(0, 0, WIDTH_MAIN, HEIGHT_MAIN);
-                    writeLines(gc);
-                    for (ImageData img : canvasData.getImagesList()) {
-                        gc.drawImage(new Image(img.getName()), img.getX(), img.getY(), img.getImgHeight(), img.getImgWidth());
-                    }
-                }
-            });
+            mode = Mode.DELETE;
+        });
+        fillButton.setOnAction(actionEvent -> {
+            logger.info("Fill button was pressed.");
+            mode = Mode.FILL;
         });
+        undoButton.setOnAction(actionEvent -> undo());
+        redoButton.setOnAction(actionEvent -> redo());
 
         // Action for saving level data
         saveButton.setOnAction(actionEvent -> {
             logger.info("Saving level data...");
-            jfc.createJsonFile(jfc.toString(canvasData.getImagesList())); //, ArrayList<imageData> imgList
+            jfc.createJsonFile(canvasData.getImagesList());
         });
 
+        // Action for opening a level file
+        openButton.setOnAction(actionEvent -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Open level");
+            fileChooser.setInitialDirectory(new File(System.getProperty("user.dir")));
+            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Levels", "*.json"));
+            File file = fileChooser.showOpenDialog(canvas.getScene().getWindow());
+            if (file != null) {
+                openLevel(file);
+            }
+        });
 
         // Layout
         BorderPane root = new BorderPane();
-        root.setTop(canvas);
+        root.setTop(new StackPane(gridCanvas, canvas));
 
         HBox buttonsBox = new HBox(15);
         buttonsBox.setMinHeight(50);
         buttonsBox.setAlignment(Pos.CENTER);
-        buttonsBox.getChildren().addAll(putButton, deleteButton, saveButton);
+        buttonsBox.getChildren().addAll(openButton, putButton, deleteButton, fillButton, undoButton, redoButton, saveButton);
         root.setBottom(buttonsBox);
 
         return root;
     }
 
+    /**
+     * Replaces the edited level with the level of the file and shows it from the map origin.
+     * The file is read with the streaming parser and the images are only drawn when their chunks become visible,
+     * every sprite is decoded once by the image cache.
+     *
+     * @param file The level file.
+     */
+    public void openLevel(File file) {
+        logger.info("Opening level: " + file);
+        long start = System.nanoTime();
+        GameData level;
+        try {
+            level = LevelParser.readLevel(file);
+        } catch (IOException e) {
+            logger.severe("Level cannot be opened: " + file + " " + e);
+            return;
+        }
+        history.clear();
+        canvasData.clear();
+        canvasData.addLevel(level);
+        chunkCache.clear();
+        viewX = 0;
+        viewY = 0;
+        drawViewport();
+        logger.info("Opened level with " + canvasData.getImagesList().size() + " images in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms.");
+    }
+
+    /**
+     * Starts a stroke of the current mode at the pressed position.
+     */
+    private void beginStroke(MouseEvent mouseEvent) {
+        strokeX = snap(toMapX(mouseEvent.getX()));
+        strokeY = snap(toMapY(mouseEvent.getY()));
+        strokeCells.clear();
+        switch (mode) {
+            case PUT -> history.begin(EditHistory.PLACE);
+            case DELETE -> history.begin(EditHistory.REMOVE);
+            default -> {
+                return;
+            }
+        }
+        continueStroke(mouseEvent);
+    }
+
+    /**
+     * Places or deletes an image at the dragged position, once per position of the stroke.
+     * Placed images are put on a grid of the image size starting at the pressed position, so they do not overlap.
+     */
+    private void continueStroke(MouseEvent mouseEvent) {
+        double x = snap(toMapX(mouseEvent.getX()));
+        double y = snap(toMapY(mouseEvent.getY()));
+        if (mode == Mode.PUT && selectedImage != null) {
+            x = strokeX + Math.floor((x - strokeX) / IMAGE_SIZE) * IMAGE_SIZE;
+            y = strokeY + Math.floor((y - strokeY) / IMAGE_SIZE) * IMAGE_SIZE;
+            if (strokeCells.add(positionKey(x, y))) {
+                logger.info("Placing image at coordinates: x = " + x + ", y = " + y);
+                history.place(canvasData, new ImageData(selectedImageName, x, y, IMAGE_SIZE, IMAGE_SIZE));
+                redrawRegion(x, y, IMAGE_SIZE, IMAGE_SIZE);
+            }
+        } else if (mode == Mode.DELETE && strokeCells.add(positionKey(x, y))) {
+            ImageData removed = history.remove(canvasData, x, y);
+            if (removed != null) {
+                logger.info("Deleted image at coordinates: x=" + x + ", y=" + y);
+                redrawRegion(removed.getX(), removed.getY(), removed.getImgWidth(), removed.getImgHeight());
+            }
+        }
+    }
+
+    /**
+     * Ends the stroke, filling the rectangle from the pressed to the released position in fill mode.
+     */
+    private void endStroke(MouseEvent mouseEvent) {
+        if (mode == Mode.FILL && selectedImage != null) {
+            double x = snap(toMapX(mouseEvent.getX()));
+            double y = snap(toMapY(mouseEvent.getY()));
+            fill(Math.min(strokeX, x), Math.min(strokeY, y), Math.max(strokeX, x), Math.max(strokeY, y));
+        }
+        history.end();
+    }
+
+    /**
+     * Fills the rectangle with the selected image as one command and repaints it once.
+     */
+    private void fill(double minX, double minY, double maxX, double maxY) {
+        history.begin(EditHistory.FILL);
+        int count = 0;
+        for (double y = minY; y <= maxY; y += IMAGE_SIZE) {
+            for (double x = minX; x <= maxX; x += IMAGE_SIZE) {
+                history.place(canvasData, new ImageData(selectedImageName, x, y, IMAGE_SIZE, IMAGE_SIZE));
+                count++;
+            }
+        }
+        history.end();
+        logger.info("Filled " + count + " images.");
+        redrawRegion(minX, minY, maxX - minX + IMAGE_SIZE, maxY - minY + IMAGE_SIZE);
+    }
+
+    /**
+     * Undoes the last command of the edit history and repaints the region it changed once.
+     */
+    private void undo() {
+        repaint(history.undo(canvasData));
+    }
+
+    /**
+     * Redoes the last undone command of the edit history and repaints the region it changed once.
+     */
+    private void redo() {
+        repaint(history.redo(canvasData));
+    }
+
+    private void repaint(Rectangle2D region) {
+        if (region != null && !region.equals(Rectangle2D.EMPTY)) {
+            redrawRegion(region.getMinX(), region.getMinY(), region.getWidth(), region.getHeight());
+        }
+    }
+
+    private double snap(double coordinate) {
+        return Math.floor(coordinate / LINE_APPEAR) * LINE_APPEAR;
+    }
+
+    private static long positionKey(double x, double y) {
+        return ((long) x << 32) | ((long) y & 0xFFFFFFFFL);
+    }
+
     /**
      * Creates the aside item pane containing image items for selection.
      *
@@ -185,7 +387,7 @@ public class LevelEditor extends Application {
         logger.info("Reading PNG files from the resources directory...");
         readFile();
         for (String name : fileNames) {
-            Image img = new Image(name);
+            Image img = ImageCache.get(name);
 //            System.out.println(img.getHeight());
             ImageView imageView = new ImageView(img);
 
@@ -235,17 +437,130 @@ public class LevelEditor extends Application {
     }
 
     /**
-     * Draws grid lines on the canvas.
+     * Renders the images of one chunk of the map into an image.
+     *
+     * @param col The column of the chunk.
+     * @param row The row of the chunk.
+     * @return The image of the chunk, or null if the chunk has no images.
+     */
+    private Image renderChunk(int col, int row) {
+        double x = col * (double) ChunkCache.CHUNK_SIZE;
+        double y = row * (double) ChunkCache.CHUNK_SIZE;
+        List<ImageData> images = canvasData.getImagesIn(x, y, ChunkCache.CHUNK_SIZE, ChunkCache.CHUNK_SIZE);
+        if (images.isEmpty()) {
+            return null;
+        }
+        GraphicsContext gc = chunkCanvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, ChunkCache.CHUNK_SIZE, ChunkCache.CHUNK_SIZE);
+        for (ImageData img : images) {
+            gc.drawImage(ImageCache.get(img.getName()), img.getX() - x, img.getY() - y, img.getImgWidth(), img.getImgHeight());
+        }
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        return chunkCanvas.snapshot(parameters, new WritableImage(ChunkCache.CHUNK_SIZE, ChunkCache.CHUNK_SIZE));
+    }
+
+    /**
+     * Draws the grid and the visible chunks of the map, e.g. after the view changed.
+     */
+    private void drawViewport() {
+        writeLines(gridCanvas.getGraphicsContext2D());
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, WIDTH_MAIN, HEIGHT_MAIN);
+        drawChunks(gc, viewX, viewY, WIDTH_MAIN / zoom, HEIGHT_MAIN / zoom);
+    }
+
+    /**
+     * Repaints the given region of the map after an image was placed or deleted there.
+     * The chunks overlapping the region are dropped from the cache, but only the visible part of the region
+     * is drawn, so chunks outside the view are rendered when the view moves to them.
+     *
+     * @param x      The x-coordinate of the region on the map.
+     * @param y      The y-coordinate of the region on the map.
+     * @param width  The width of the region.
+     * @param height The height of the region.
+     */
+    private void redrawRegion(double x, double y, double width, double height) {
+        chunkCache.invalidate(x, y, width, height);
+        double left = Math.max(x, viewX);
+        double top = Math.max(y, viewY);
+        double right = Math.min(x + width, viewX + WIDTH_MAIN / zoom);
+        double bottom = Math.min(y + height, viewY + HEIGHT_MAIN / zoom);
+        if (right <= left || bottom <= top) {
+            return;
+        }
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double screenX = (left - viewX) * zoom;
+        double screenY = (top - viewY) * zoom;
+        gc.clearRect(screenX, screenY, (right - left) * zoom, (bottom - top) * zoom);
+        gc.save();
+        gc.beginPath();
+        gc.rect(screenX, screenY, (right - left) * zoom, (bottom - top) * zoom);
+        gc.clip();
+        drawChunks(gc, left, top, right - left, bottom - top);
+        gc.restore();
+    }
+
+    /**
+     * Draws the chunks overlapping the given region of the map, rendering the chunks which are not cached.
+     */
+    private void drawChunks(GraphicsContext gc, double x, double y, double width, double height) {
+        double size = ChunkCache.CHUNK_SIZE * zoom;
+        for (int row = ChunkCache.chunkOf(y); row <= ChunkCache.chunkOf(y + height - 1); row++) {
+            for (int col = ChunkCache.chunkOf(x); col <= ChunkCache.chunkOf(x + width - 1); col++) {
+                Image chunk = chunkCache.get(col, row);
+                if (chunk != null) {
+                    gc.drawImage(chunk, (col * (double) ChunkCache.CHUNK_SIZE - viewX) * zoom,
+                            (row * (double) ChunkCache.CHUNK_SIZE - viewY) * zoom, size, size);
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the view by the given distance in screen pixels. The view does not go left of or above the map origin.
+     */
+    private void panBy(double dx, double dy) {
+        viewX = Math.max(0, viewX + dx / zoom);
+        viewY = Math.max(0, viewY + dy / zoom);
+        drawViewport();
+    }
+
+    /**
+     * Zooms the view by the given factor, keeping the map position under the given screen position in place.
+     */
+    private void zoomAt(double screenX, double screenY, double factor) {
+        double mapX = toMapX(screenX);
+        double mapY = toMapY(screenY);
+        zoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * factor));
+        viewX = Math.max(0, mapX - screenX / zoom);
+        viewY = Math.max(0, mapY - screenY / zoom);
+        drawViewport();
+    }
+
+    private double toMapX(double screenX) {
+        return viewX + screenX / zoom;
+    }
+
+    private double toMapY(double screenY) {
+        return viewY + screenY / zoom;
+    }
+
+    /**
+     * Draws grid lines of the visible part of the map on the canvas.
      *
      * @param gc The graphics context of the canvas.
      */
     public void writeLines(GraphicsContext gc) {
+        gc.clearRect(0, 0, WIDTH_MAIN, HEIGHT_MAIN);
 
-        for (int x = 0; x <= WIDTH_MAIN; x += LINE_APPEAR) {
+        double firstX = Math.ceil(viewX / LINE_APPEAR) * LINE_APPEAR;
+        for (double x = (firstX - viewX) * zoom; x <= WIDTH_MAIN; x += LINE_APPEAR * zoom) {
             gc.strokeLine(x, 0, x, HEIGHT_MAIN);
         }
 
-        for (int y = 0; y <= HEIGHT_MAIN; y += LINE_APPEAR) {
+        double firstY = Math.ceil(viewY / LINE_APPEAR) * LINE_APPEAR;
+        for (double y = (firstY - viewY) * zoom; y <= HEIGHT_MAIN; y += LINE_APPEAR * zoom) {
             gc.strokeLine(0, y, WIDTH_MAIN, y);
         }
 
@@ -0,0 +1,30 @@
+package org.game.thegreatescape.model;
+
+/**
+ * The Aabb class provides overlap tests for axis-aligned rectangles given by primitive coordinates.
+ * Touching edges count as an overlap, the same as for the bounds of JavaFX shapes.
+ */
+public final class Aabb {
+
+    private Aabb() {
+    }
+
+    /**
+     * Checks if two rectangles intersect.
+     *
+     * @param ax      The x-coordinate of the first rectangle.
+     * @param ay      The y-coordinate of the first rectangle.
+     * @param aWidth  The width of the first rectangle.
+     * @param aHeight The height of the first rectangle.
+     * @param bx      The x-coordinate of the second rectangle.
+     * @param by      The y-coordinate of the second rectangle.
+     * @param bWidth  The width of the second rectangle.
+     * @param bHeight The height of the second rectangle.
+     * @return true if the rectangles intersect or touch, false otherwise.
+     */
+    public static boolean intersects(int ax, int ay, int aWidth, int aHeight,
+                                     int bx, int by, int bWidth, int bHeight) {
+        return ax <= bx + bWidth && ax + aWidth >= bx
+                && ay <= by + bHeight && ay + aHeight >= by;
+    }
+}
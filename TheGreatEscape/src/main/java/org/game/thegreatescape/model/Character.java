@@ -1,7 +1,5 @@
 package org.game.thegreatescape.model;
 
-import javafx.scene.image.Image;
-
 import java.util.ArrayList;
 import java.util.logging.Logger;
 
@@ -21,12 +19,13 @@ public class Character {
     private final int WIDTH = 48; // Width of the character's sprite
     private final int HEIGHT = 53; // Height of the character's sprite
 
-    // Arrays of images for different character directions and animation phases
-    final Image[] DOWN = {new Image("godown0.png"), new Image("godown1.png"), new Image("godown2.png")};
-    final Image[] LEFT = {new Image("goleft0.png"), new Image("goleft1.png"), new Image("goleft2.png")};
-    final Image[] RIGHT = {new Image("goright0.png"), new Image("goright1.png"), new Image("goright2.png")};
-    final Image[] UP = {new Image("goup0.png"), new Image("goup1.png"), new Image("goup2.png")};
-    final Image[] STAY = {new Image("godown0.png")};
+    // File names of the images for different character directions and animation phases.
+    // The view resolves them to images, so the model does not depend on JavaFX.
+    private static final String[] DOWN_NAMES = {"godown0.png", "godown1.png", "godown2.png"};
+    private static final String[] LEFT_NAMES = {"goleft0.png", "goleft1.png", "goleft2.png"};
+    private static final String[] RIGHT_NAMES = {"goright0.png", "goright1.png", "goright2.png"};
+    private static final String[] UP_NAMES = {"goup0.png", "goup1.png", "goup2.png"};
+    private static final String[] STAY_NAMES = {"godown0.png"};
 
     /**
      * Constructor for the Character class.
@@ -148,17 +147,26 @@ public class Character {
     }
 
     /**
-     * Get the image representing the character's current direction and animation phase.
+     * Get the file name of the image representing the character's current direction and animation phase.
      *
-     * @return The image representing the character.
+     * @return The file name of the image representing the character.
      */
-    public Image getImage() {
+    public String getImageName() {
         return switch (direction) {
-            case UP -> UP[animationPhase];
-            case RIGHT -> RIGHT[animationPhase];
-            case DOWN -> DOWN[animationPhase];
-            case LEFT -> LEFT[animationPhase];
-            case STAY -> STAY[0];
+            case UP -> UP_NAMES[animationPhase];
+            case RIGHT -> RIGHT_NAMES[animationPhase];
+            case DOWN -> DOWN_NAMES[animationPhase];
+            case LEFT -> LEFT_NAMES[animationPhase];
+            case STAY -> STAY_NAMES[0];
         };
     }
+
+    /**
+     * Get the file names of all images of the character, e.g. to load them before the game starts.
+     *
+     * @return The file names of the images for the directions down, left, right, up and stay.
+     */
+    public String[][] returnImagesList() {
+        return new String[][]{DOWN_NAMES, LEFT_NAMES, RIGHT_NAMES, UP_NAMES, STAY_NAMES};
+    }
 }
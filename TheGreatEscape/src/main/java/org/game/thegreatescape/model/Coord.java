@@ -8,6 +8,12 @@ public class Coord {
 
     public Coord() {
     }
+
+    public Coord(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+
     public int getX() {
         return x;
     }
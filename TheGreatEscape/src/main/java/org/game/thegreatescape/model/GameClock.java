@@ -0,0 +1,105 @@
+package org.game.thegreatescape.model;
+
+/**
+ * The GameClock class drives the simulation with a fixed tick rate, independent of the frame rate.
+ * Elapsed frame time is collected in an accumulator and converted into whole ticks; the remainder
+ * is used to interpolate the rendered state between the last two ticks.
+ * It also measures ticks per second and frame time.
+ */
+public class GameClock {
+    public static final int TICKS_PER_SECOND = 120;
+    public static final long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+    private static final int MAX_TICKS_PER_FRAME = 12; // Drop time after long stalls instead of catching up forever
+    private static final long SECOND = 1_000_000_000L;
+
+    private long lastFrame = -1;
+    private long accumulator;
+
+    // Measurement
+    private long frameTime;
+    private long windowStart = -1;
+    private int windowTicks;
+    private int windowFrames;
+    private long windowFrameTime;
+    private int ticksPerSecond;
+    private int framesPerSecond;
+    private long averageFrameTime;
+
+    /**
+     * Advances the clock to the time of the current frame.
+     *
+     * @param now The time of the current frame in nanoseconds.
+     * @return The number of ticks the simulation has to run in this frame.
+     */
+    public int advance(long now) {
+        if (lastFrame < 0) {
+            lastFrame = now;
+            windowStart = now;
+        }
+        frameTime = now - lastFrame;
+        lastFrame = now;
+        accumulator += frameTime;
+
+        int ticks = (int) Math.min(accumulator / TICK_NANOS, MAX_TICKS_PER_FRAME);
+        accumulator = Math.min(accumulator - ticks * TICK_NANOS, TICK_NANOS);
+
+        windowTicks += ticks;
+        windowFrames++;
+        windowFrameTime += frameTime;
+        if (now - windowStart >= SECOND) {
+            ticksPerSecond = windowTicks;
+            framesPerSecond = windowFrames;
+            averageFrameTime = windowFrameTime / windowFrames;
+            windowStart = now;
+            windowTicks = 0;
+            windowFrames = 0;
+            windowFrameTime = 0;
+        }
+        return ticks;
+    }
+
+    /**
+     * Get the part of a tick which elapsed after the last tick.
+     *
+     * @return A value from 0 to 1 for interpolating between the previous and the current tick.
+     */
+    public double getAlpha() {
+        return (double) accumulator / TICK_NANOS;
+    }
+
+    /**
+     * Get the number of ticks run during the last full second.
+     *
+     * @return The measured ticks per second.
+     */
+    public int getTicksPerSecond() {
+        return ticksPerSecond;
+    }
+
+    /**
+     * Get the number of frames rendered during the last full second.
+     *
+     * @return The measured frames per second.
+     */
+    public int getFramesPerSecond() {
+        return framesPerSecond;
+    }
+
+    /**
+     * Get the time between the last two frames.
+     *
+     * @return The frame time in nanoseconds.
+     */
+    public long getFrameTime() {
+        return frameTime;
+    }
+
+    /**
+     * Get the average time between frames during the last full second.
+     *
+     * @return The average frame time in nanoseconds.
+     */
+    public long getAverageFrameTime() {
+        return averageFrameTime;
+    }
+}
@@ -1,6 +1,7 @@
 package org.game.thegreatescape.model;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -19,4 +20,31 @@ public class GameData {
      * Default constructor for the GameData class.
      */
     public GameData() {}
+
+    /**
+     * Creates a deep copy of the game data, which can be changed without affecting this object.
+     * The tiles keep their iteration order, so the copy is drawn exactly like the original.
+     *
+     * @return The copy of the game data.
+     */
+    public GameData copy() {
+        GameData copy = new GameData();
+        copy.tiles = new LinkedHashMap<>();
+        for (Map.Entry<String, GameItem> entry : tiles.entrySet()) {
+            copy.tiles.put(entry.getKey(), entry.getValue().copy());
+        }
+        copy.START_POSITION_PLAYERX = START_POSITION_PLAYERX;
+        copy.START_POSITION_PLAYERY = START_POSITION_PLAYERY;
+        copy.START_ANIMATION_PHASE = START_ANIMATION_PHASE;
+        return copy;
+    }
+
+    /**
+     * Builds the dense tile map of this level, e.g. for lookups by cell.
+     *
+     * @return The tile map.
+     */
+    public TileMap toTileMap() {
+        return TileMap.fromGameData(this);
+    }
 }
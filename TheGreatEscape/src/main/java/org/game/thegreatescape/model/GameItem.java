@@ -6,7 +6,7 @@ package org.game.thegreatescape.model;
 public class GameItem {
 
     public String fileName; // The file name of the item's sprite
-    public Coord[] coords; // Array of coordinates defining the item's position
+    private int[] coords; // Interleaved x and y of the coordinates defining the item's position, or null
     public int width; // Width of the item
     public int height; // Height of the item
     public boolean isDoorToTheNextLevel; // Indicates if the item is a door to the next level
@@ -23,4 +23,109 @@ public class GameItem {
     public GameItem() {
     }
 
+    /**
+     * Get the number of coordinates of the item.
+     *
+     * @return The number of coordinates.
+     */
+    public int coordCount() {
+        return coords != null ? coords.length / 2 : 0;
+    }
+
+    /**
+     * Get the x-coordinate of the coordinate with the given index.
+     *
+     * @param i The index of the coordinate, from 0 to coordCount() - 1.
+     * @return The x-coordinate.
+     */
+    public int x(int i) {
+        return coords[2 * i];
+    }
+
+    /**
+     * Get the y-coordinate of the coordinate with the given index.
+     *
+     * @param i The index of the coordinate, from 0 to coordCount() - 1.
+     * @return The y-coordinate.
+     */
+    public int y(int i) {
+        return coords[2 * i + 1];
+    }
+
+    /**
+     * Get the coordinates as one array of interleaved x and y, without copying them.
+     * The array must not be changed.
+     *
+     * @return The packed coordinates, or null if the item has none.
+     */
+    public int[] packedCoords() {
+        return coords;
+    }
+
+    /**
+     * Set the coordinates from one array of interleaved x and y. The array is used without copying it.
+     *
+     * @param packedCoords The packed coordinates, or null.
+     */
+    public void setPackedCoords(int[] packedCoords) {
+        if (packedCoords != null && packedCoords.length % 2 != 0) {
+            throw new IllegalArgumentException("Packed coordinates must contain pairs of x and y");
+        }
+        this.coords = packedCoords;
+    }
+
+    /**
+     * Get the coordinates as Coord objects, as they are stored in the level files.
+     * Every call creates new objects, so code running every frame should use coordCount(), x(i) and y(i).
+     *
+     * @return The coordinates, or null if the item has none.
+     */
+    public Coord[] getCoords() {
+        if (coords == null) {
+            return null;
+        }
+        Coord[] result = new Coord[coordCount()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = new Coord(x(i), y(i));
+        }
+        return result;
+    }
+
+    /**
+     * Set the coordinates from Coord objects, as they are stored in the level files.
+     *
+     * @param coords The coordinates, or null.
+     */
+    public void setCoords(Coord[] coords) {
+        if (coords == null) {
+            this.coords = null;
+            return;
+        }
+        this.coords = new int[2 * coords.length];
+        for (int i = 0; i < coords.length; i++) {
+            this.coords[2 * i] = coords[i].x;
+            this.coords[2 * i + 1] = coords[i].y;
+        }
+    }
+
+    /**
+     * Creates a deep copy of the item, including its coordinates.
+     *
+     * @return The copy of the item.
+     */
+    public GameItem copy() {
+        GameItem copy = new GameItem();
+        copy.fileName = fileName;
+        copy.coords = coords != null ? coords.clone() : null;
+        copy.width = width;
+        copy.height = height;
+        copy.isDoorToTheNextLevel = isDoorToTheNextLevel;
+        copy.nextLevel = nextLevel;
+        copy.nextX = nextX;
+        copy.nextY = nextY;
+        copy.isCollision = isCollision;
+        copy.isTouchable = isTouchable;
+        copy.isTheEnd = isTheEnd;
+        return copy;
+    }
 }
@@ -0,0 +1,160 @@
+package org.game.thegreatescape.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+/**
+ * The HeadlessRunner class drives the model from scripted input without any window or JavaFX toolkit.
+ * The ticks run one after another at full CPU speed, which is useful for tests, benchmarks and replays.
+ * <p>
+ * Every line of the script holds one command, lines starting with # are comments:
+ * <ul>
+ *     <li>{@code UP|DOWN|LEFT|RIGHT <ticks>} holds the movement key for the given number of ticks</li>
+ *     <li>{@code WAIT <ticks>} runs the given number of ticks without input</li>
+ *     <li>{@code LEVEL <number>} starts a new game in the given level</li>
+ * </ul>
+ */
+public class HeadlessRunner {
+    static Logger logger = Logger.getLogger(HeadlessRunner.class.getName());
+
+    private Model model;
+    private Simulation simulation;
+    private long ticks; // Number of ticks run so far
+
+    /**
+     * Constructor of a HeadlessRunner for the given model.
+     *
+     * @param model The model to drive.
+     */
+    public HeadlessRunner(Model model) {
+        setModel(model);
+    }
+
+    public Model getModel() {
+        return model;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Runs all commands of the script.
+     *
+     * @param script The reader of the script.
+     * @throws IOException              If the script cannot be read.
+     * @throws IllegalArgumentException If a line is not a valid command, the message starts with its line number.
+     */
+    public void run(Reader script) throws IOException {
+        BufferedReader reader = new BufferedReader(script);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected a command and a number: " + line);
+            }
+            try {
+                execute(parts[0].toUpperCase(), Integer.parseInt(parts[1]));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage() + ": " + line, e);
+            }
+        }
+    }
+
+    /**
+     * Executes one command of the script.
+     *
+     * @param command The name of the command.
+     * @param value   The argument of the command.
+     */
+    public void execute(String command, int value) {
+        switch (command) {
+            case "LEVEL" -> {
+                if (value < 1 || value > Model.LEVEL_COUNT) {
+                    throw new IllegalArgumentException("Level must be between 1 and " + Model.LEVEL_COUNT);
+                }
+                setModel(new Model(value));
+            }
+            case "WAIT" -> runTicks(value);
+            case "UP", "DOWN", "LEFT", "RIGHT" -> {
+                Direction direction = Direction.valueOf(command);
+                simulation.setDirection(direction, true);
+                runTicks(value);
+                simulation.setDirection(direction, false);
+            }
+            default -> throw new IllegalArgumentException("Unknown command: " + command);
+        }
+    }
+
+    /**
+     * Runs the given number of ticks without waiting between them.
+     *
+     * @param count The number of ticks.
+     */
+    public void runTicks(int count) {
+        for (int i = 0; i < count; i++) {
+            simulation.tick();
+        }
+        ticks += count;
+    }
+
+    private void setModel(Model model) {
+        this.model = model;
+        this.simulation = new Simulation(model);
+    }
+
+    /**
+     * Main method of the headless mode.
+     * Reads the script from the file given as the first argument, or from the standard input,
+     * runs it on a new game in the first level and logs the final state.
+     *
+     * @param args The path of the script and optionally --disable-logging.
+     */
+    public static void main(String[] args) throws IOException {
+        String scriptPath = null;
+        for (String arg : args) {
+            if (arg.equals("--disable-logging")) {
+                LogManager.getLogManager().reset();
+            } else if (!arg.startsWith("--")) {
+                scriptPath = arg;
+            }
+        }
+        runScript(scriptPath);
+    }
+
+    /**
+     * Runs the script on a new game in the first level and logs the final state.
+     *
+     * @param scriptPath The path of the script, or null to read it from the standard input.
+     * @throws IOException If the script cannot be read.
+     */
+    public static void runScript(String scriptPath) throws IOException {
+        HeadlessRunner runner = new HeadlessRunner(new Model(1));
+        long start = System.nanoTime();
+        try (Reader script = scriptPath != null
+                ? Files.newBufferedReader(Paths.get(scriptPath))
+                : new InputStreamReader(System.in)) {
+            runner.run(script);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Character player = runner.getModel().getPlayer();
+        logger.info("Level: " + runner.getModel().getLevel()
+                + ", player X: " + player.getCharacterX() + ", player Y: " + player.getCharacterY()
+                + ", game end: " + runner.getModel().isGameIsEnd());
+        logger.info(String.format("%d ticks in %.1f ms (%.0f ticks per second)", runner.getTicks(), elapsed / 1e6,
+                runner.getTicks() / Math.max(elapsed / 1e9, 1e-9)));
+    }
+}
@@ -0,0 +1,61 @@
+package org.game.thegreatescape.model;
+
+/**
+ * The InputState class holds which movement directions are currently held down.
+ * Key events only change the state; the simulation samples it once per tick.
+ */
+public class InputState {
+    private boolean up;
+    private boolean down;
+    private boolean left;
+    private boolean right;
+
+    /**
+     * Updates the state for a pressed or released direction. STAY is ignored.
+     *
+     * @param direction The direction of the key.
+     * @param pressed   true if the key was pressed, false if it was released.
+     */
+    public void setDirection(Direction direction, boolean pressed) {
+        switch (direction) {
+            case UP -> up = pressed;
+            case DOWN -> down = pressed;
+            case LEFT -> left = pressed;
+            case RIGHT -> right = pressed;
+            default -> {
+            }
+        }
+    }
+
+    public boolean isUp() {
+        return up;
+    }
+
+    public boolean isDown() {
+        return down;
+    }
+
+    public boolean isLeft() {
+        return left;
+    }
+
+    public boolean isRight() {
+        return right;
+    }
+
+    /**
+     * Checks if any movement key is held.
+     *
+     * @return true if at least one movement key is held.
+     */
+    public boolean isMoving() {
+        return up || down || left || right;
+    }
+
+    /**
+     * Releases all keys, e.g. when the window loses focus.
+     */
+    public void clear() {
+        up = down = left = right = false;
+    }
+}
@@ -0,0 +1,439 @@
+package org.game.thegreatescape.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Logger;
+
+/**
+ * The Journal class is an append-only binary log of the changes of a game since the last saved game.
+ * After a crash the game is recovered by loading the saved game and replaying the journal on top of it.
+ * <p>
+ * All numbers are little endian. The file starts with the magic "TGJ1", an int16 version and the int64
+ * generation of the saved game the journal belongs to. Every event is an int16 length of the rest of the event,
+ * a byte type and its arguments, strings as uint16 byte length and UTF-8 bytes. An event cut off by a crash
+ * is ignored when replaying.
+ * <p>
+ * Events are collected in a buffer and written to the file when the state of an item changes, when the buffer is
+ * full and at least once per {@link #FLUSH_INTERVAL_NANOS} for movements of the player.
+ * If the journal cannot be written, the error is logged and the journal is disabled, so the game goes on.
+ * <p>
+ * The journal is compacted by writing the state to the recovery file and starting the next generation with the
+ * events appended since. Until the recovery file is written the journal keeps its generation, afterwards the
+ * events are copied into a new file which replaces the journal. A journal one generation ahead of the recovery
+ * file was compacted after it was written and is replayed from its first event.
+ */
+public class Journal {
+    static Logger logger = Logger.getLogger(Journal.class.getName());
+
+    public static final int MAGIC = 0x314A4754; // "TGJ1" read as a little endian int
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 4 + 2 + 8;
+    public static final int BUFFER_SIZE = 8 * 1024;
+    public static final long FLUSH_INTERVAL_NANOS = 1_000_000_000L;
+
+    // Types of the events, the arguments are in brackets
+    public static final byte OPEN_DOORS = 1; // (level)
+    public static final byte OPEN_CHESTS = 2; // (level)
+    public static final byte CLOSE_CHEST = 3; // (level)
+    public static final byte COLLECT_KEY = 4; // (level)
+    public static final byte UNSET_TOUCHING = 5; // (level, item)
+    public static final byte PUT_IN_INVENTORY = 6; // (level)
+    public static final byte LEVEL = 7; // (level, int32 x, int32 y) the player entered the level at the position
+    public static final byte POSITION = 8; // (int32 x, int32 y) the player moved
+    public static final byte BUTTON = 9; // (int32 button) a button of the panel was pressed
+    public static final byte CLOSE_PANEL = 10; // () the sequence of the panel was solved
+    public static final byte CHEST_TIMER = 11; // (int32 millis) the chest timer started with the time left, -1 if it stopped
+
+    private final Path path;
+    private FileChannel channel; // Replaced when the journal is compacted
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long generation;
+    private long written; // Bytes in the file, without the buffer
+    private long writes; // Times the buffer was written to the file
+    private long lastFlush;
+    private boolean failed;
+
+    private long events; // Appended events and the time spent appending them
+    private long appendNanos;
+
+    private Journal(Path path, FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    /**
+     * Creates an empty journal for the given generation, replacing the file if it exists.
+     *
+     * @param path       The path of the journal.
+     * @param generation The generation of the saved game the journal belongs to.
+     * @return The journal.
+     * @throws IOException If the file cannot be written.
+     */
+    public static Journal create(Path path, long generation) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+        Journal journal = new Journal(path, channel);
+        try {
+            journal.reset(generation);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    /**
+     * Removes all events and starts the given generation.
+     *
+     * @param generation The generation of the recovery file the journal belongs to.
+     * @throws IOException If the file cannot be written.
+     */
+    private synchronized void reset(long generation) throws IOException {
+        buffer.clear();
+        channel.truncate(0);
+        channel.write(header(generation), 0);
+        channel.position(HEADER_SIZE);
+        channel.force(false);
+        this.generation = generation;
+        written = HEADER_SIZE;
+        lastFlush = System.nanoTime();
+        failed = false;
+    }
+
+    /**
+     * Starts the next generation with the events from the given offset on, after the state up to the offset
+     * was written to the recovery file. The events are copied into a new file which then replaces the journal,
+     * so a crash leaves either the old or the new journal. Events may be appended while the journal is compacted,
+     * the lock is only held to copy them and to replace the file.
+     *
+     * @param generation The generation of the new journal, one more than the current one.
+     * @param offset     The offset of the first event which is not contained in the recovery file.
+     * @throws IOException If the new journal cannot be written. The journal is kept unchanged.
+     */
+    public void compact(long generation, long offset) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        long copied;
+        synchronized (this) {
+            if (failed || this.generation != generation - 1) {
+                return;
+            }
+            writeBuffer();
+            copied = written;
+        }
+        try {
+            // Events before the copied size are not written anymore, they are copied without the lock
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                out.write(header(generation));
+                transfer(offset, copied, out);
+                out.force(false);
+            }
+            synchronized (this) {
+                if (failed) {
+                    return;
+                }
+                writeBuffer();
+                try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    transfer(copied, written, out);
+                }
+                channel.close();
+                try {
+                    try {
+                        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    written = HEADER_SIZE + written - offset;
+                    this.generation = generation;
+                } finally {
+                    channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.READ);
+                    channel.position(written);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Appends an event which changes items of a level and writes it to the file.
+     *
+     * @param type  OPEN_DOORS, OPEN_CHESTS, CLOSE_CHEST, COLLECT_KEY or PUT_IN_INVENTORY.
+     * @param level The name of the level.
+     */
+    public void append(byte type, String level) {
+        append(type, level, null, 0, 0, true);
+    }
+
+    /**
+     * Appends an event without arguments and writes it to the file.
+     *
+     * @param type CLOSE_PANEL.
+     */
+    public void append(byte type) {
+        append(type, null, null, 0, 0, true);
+    }
+
+    /**
+     * Appends an event with one number and writes it to the file.
+     *
+     * @param type  BUTTON or CHEST_TIMER.
+     * @param value The number.
+     */
+    public void append(byte type, int value) {
+        append(type, null, null, value, 0, true);
+    }
+
+    /**
+     * Appends an UNSET_TOUCHING event and writes it to the file.
+     *
+     * @param level The name of the level.
+     * @param item  The file name of the item.
+     */
+    public void appendUnsetTouching(String level, String item) {
+        append(UNSET_TOUCHING, level, item, 0, 0, true);
+    }
+
+    /**
+     * Appends a LEVEL event and writes it to the file.
+     *
+     * @param level The name of the entered level.
+     * @param x     The x-coordinate of the player in the level.
+     * @param y     The y-coordinate of the player in the level.
+     */
+    public void appendLevel(String level, int x, int y) {
+        append(LEVEL, level, null, x, y, true);
+    }
+
+    /**
+     * Appends a POSITION event. It is written to the file with the next flush.
+     *
+     * @param x The x-coordinate of the player.
+     * @param y The y-coordinate of the player.
+     */
+    public void appendPosition(int x, int y) {
+        append(POSITION, null, null, x, y, false);
+    }
+
+    private synchronized void append(byte type, String level, String item, int x, int y, boolean flush) {
+        if (failed) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            byte[] levelBytes = level != null ? level.getBytes(StandardCharsets.UTF_8) : null;
+            byte[] itemBytes = item != null ? item.getBytes(StandardCharsets.UTF_8) : null;
+            int ints = intsOf(type);
+            int length = 1 + (levelBytes != null ? 2 + levelBytes.length : 0) + (itemBytes != null ? 2 + itemBytes.length : 0)
+                    + 4 * ints;
+            if (2 + length > buffer.remaining()) {
+                writeBuffer();
+            }
+            buffer.putShort((short) length);
+            buffer.put(type);
+            if (levelBytes != null) {
+                buffer.putShort((short) levelBytes.length).put(levelBytes);
+            }
+            if (itemBytes != null) {
+                buffer.putShort((short) itemBytes.length).put(itemBytes);
+            }
+            if (ints > 0) {
+                buffer.putInt(x);
+            }
+            if (ints > 1) {
+                buffer.putInt(y);
+            }
+            if (flush || start - lastFlush >= FLUSH_INTERVAL_NANOS) {
+                writeBuffer();
+                lastFlush = start;
+            }
+        } catch (IOException e) {
+            failed = true;
+            logger.severe("Error occurred while writing the journal, it is disabled: " + e);
+        }
+        events++;
+        appendNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Writes the buffered events to the file.
+     */
+    public synchronized void flush() {
+        if (failed) {
+            return;
+        }
+        try {
+            writeBuffer();
+            lastFlush = System.nanoTime();
+        } catch (IOException e) {
+            failed = true;
+            logger.severe("Error occurred while writing the journal, it is disabled: " + e);
+        }
+    }
+
+    /**
+     * Get the number of int32 arguments of the event type.
+     */
+    private static int intsOf(byte type) {
+        return switch (type) {
+            case LEVEL, POSITION -> 2;
+            case BUTTON, CHEST_TIMER -> 1;
+            default -> 0;
+        };
+    }
+
+    private static ByteBuffer header(long generation) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putShort(VERSION).putLong(generation).flip();
+        return header;
+    }
+
+    /**
+     * Copies the bytes of the journal between the given offsets to the end of the other file.
+     */
+    private void transfer(long from, long to, FileChannel out) throws IOException {
+        while (from < to) {
+            from += channel.transferTo(from, to - from, out);
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        if (buffer.hasRemaining()) {
+            writes++;
+        }
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes the buffered events and closes the file.
+     */
+    public synchronized void close() {
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warning("Error occurred while closing the journal: " + e);
+        }
+        failed = true;
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Get the size of the journal including the buffered events, which is the offset of the next event.
+     *
+     * @return The size in bytes.
+     */
+    public synchronized long getSize() {
+        return written + buffer.position();
+    }
+
+    public synchronized long getEvents() {
+        return events;
+    }
+
+    /**
+     * Get the number of times buffered events were written to the file.
+     *
+     * @return The number of writes.
+     */
+    public synchronized long getWrites() {
+        return writes;
+    }
+
+    /**
+     * Get the average time an append took, including writing to the file when the event was flushed.
+     *
+     * @return The average time in nanoseconds, or 0 if nothing was appended yet.
+     */
+    public synchronized long getAverageAppendNanos() {
+        return events == 0 ? 0 : appendNanos / events;
+    }
+
+    /**
+     * Replays the events of the journal onto the model, starting at the given offset.
+     * A journal which was compacted after the saved game was written is replayed from its first event.
+     * Nothing is replayed if the journal belongs to another generation.
+     *
+     * @param path       The path of the journal.
+     * @param generation The generation of the saved game the model was loaded from.
+     * @param offset     The offset of the first event which is not contained in the saved game.
+     * @param model      The model loaded from the saved game.
+     * @return The number of replayed events.
+     * @throws IOException If the file cannot be read.
+     */
+    public static int replay(Path path, long generation, long offset, Model model) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+            logger.warning("Not a journal: " + path);
+            return 0;
+        }
+        long journalGeneration = buffer.getLong();
+        if (journalGeneration == generation + 1) {
+            // Compacted after the saved game was written, it starts with the events after the offset
+            offset = HEADER_SIZE;
+        } else if (journalGeneration != generation) {
+            logger.info("Journal belongs to generation " + journalGeneration + ", not " + generation + ", nothing to replay.");
+            return 0;
+        }
+        if (offset < HEADER_SIZE || offset > buffer.limit()) {
+            logger.warning("Journal offset " + offset + " is outside of the journal, nothing to replay.");
+            return 0;
+        }
+        buffer.position((int) offset);
+        int replayed = 0;
+        while (buffer.remaining() >= 2) {
+            int length = Short.toUnsignedInt(buffer.getShort());
+            if (length == 0 || length > buffer.remaining()) {
+                logger.warning("Journal ends with an incomplete event, it is ignored.");
+                break;
+            }
+            ByteBuffer event = buffer.slice(buffer.position(), length).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.position(buffer.position() + length);
+            byte type = event.get();
+            switch (type) {
+                case OPEN_DOORS -> model.openDoors(string(event));
+                case OPEN_CHESTS -> model.openChests(string(event));
+                case CLOSE_CHEST -> model.closeChest(string(event));
+                case COLLECT_KEY -> model.collectKey(string(event));
+                case UNSET_TOUCHING -> model.unsetTouching(string(event), string(event));
+                case PUT_IN_INVENTORY -> model.putInInventory(string(event));
+                case LEVEL -> model.restoreLevel(string(event), event.getInt(), event.getInt());
+                case POSITION -> model.restorePosition(event.getInt(), event.getInt());
+                case BUTTON -> model.checkButton(event.getInt());
+                case CLOSE_PANEL -> model.solvePanel();
+                case CHEST_TIMER -> model.restoreChestTimer(event.getInt());
+                default -> {
+                    logger.warning("Unknown journal event " + type + ", replay stopped.");
+                    return replayed;
+                }
+            }
+            replayed++;
+        }
+        logger.info("Replayed " + replayed + " journal events.");
+        return replayed;
+    }
+
+    private static String string(ByteBuffer event) {
+        byte[] bytes = new byte[Short.toUnsignedInt(event.getShort())];
+        event.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
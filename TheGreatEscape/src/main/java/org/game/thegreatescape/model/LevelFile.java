@@ -0,0 +1,242 @@
+package org.game.thegreatescape.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * The LevelFile class reads and writes levels in the compact binary level format (.tgl).
+ * <p>
+ * All numbers are little endian. The file consists of:
+ * <ul>
+ *     <li>header: magic "TGL1", int16 version, int32 start x, int32 start y, int32 start animation phase</li>
+ *     <li>string table: int32 count, then every string as uint16 byte length and UTF-8 bytes</li>
+ *     <li>items: int32 count, then for every item the int16 indexes of its name, file name and next level
+ *     (-1 for none), int16 width and height, a byte of flags, int32 next x and next y,
+ *     int32 coordinate count and the packed int16 x and y of every coordinate</li>
+ * </ul>
+ * Items keep their order, so a converted level is drawn exactly like the JSON level.
+ */
+public final class LevelFile {
+    static Logger logger = Logger.getLogger(LevelFile.class.getName());
+
+    public static final String EXTENSION = ".tgl";
+    public static final int MAGIC = 0x314C4754; // "TGL1" read as a little endian int
+    public static final short VERSION = 1;
+
+    // Bits of the flags byte of an item
+    private static final int DOOR = 1;
+    private static final int COLLISION = 2;
+    private static final int TOUCHABLE = 4;
+    private static final int END = 8;
+
+    private LevelFile() {
+    }
+
+    /**
+     * Reads a level by memory-mapping the file.
+     *
+     * @param path The path of the .tgl file.
+     * @return The level.
+     * @throws IOException If the file cannot be read or is not a level file.
+     */
+    public static GameData read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer);
+        }
+    }
+
+    /**
+     * Reads a level from the buffer.
+     *
+     * @param buffer The buffer positioned at the start of the level.
+     * @return The level.
+     * @throws IOException If the buffer does not contain a level.
+     */
+    public static GameData read(ByteBuffer buffer) throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a level file");
+            }
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported level file version: " + version);
+            }
+            GameData gameData = new GameData();
+            gameData.START_POSITION_PLAYERX = buffer.getInt();
+            gameData.START_POSITION_PLAYERY = buffer.getInt();
+            gameData.START_ANIMATION_PHASE = buffer.getInt();
+
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            int itemCount = buffer.getInt();
+            LinkedHashMap<String, GameItem> tiles = new LinkedHashMap<>((int) (itemCount / 0.75f) + 1);
+            for (int i = 0; i < itemCount; i++) {
+                String name = string(strings, buffer.getShort());
+                GameItem item = new GameItem();
+                item.fileName = string(strings, buffer.getShort());
+                item.nextLevel = string(strings, buffer.getShort());
+                item.width = buffer.getShort();
+                item.height = buffer.getShort();
+                int flags = buffer.get();
+                item.isDoorToTheNextLevel = (flags & DOOR) != 0;
+                item.isCollision = (flags & COLLISION) != 0;
+                item.isTouchable = (flags & TOUCHABLE) != 0;
+                item.isTheEnd = (flags & END) != 0;
+                item.nextX = buffer.getInt();
+                item.nextY = buffer.getInt();
+                int coordCount = buffer.getInt();
+                if (coordCount >= 0) {
+                    int[] coords = new int[2 * coordCount];
+                    for (int c = 0; c < coords.length; c++) {
+                        coords[c] = buffer.getShort();
+                    }
+                    item.setPackedCoords(coords);
+                }
+                tiles.put(name, item);
+            }
+            gameData.tiles = tiles;
+            return gameData;
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt level file", e);
+        }
+    }
+
+    /**
+     * Writes the level to the file in the binary level format.
+     *
+     * @param gameData The level.
+     * @param path     The path of the .tgl file.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(GameData gameData, Path path) throws IOException {
+        ByteBuffer buffer = toBytes(gameData);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Encodes the level in the binary level format.
+     *
+     * @param gameData The level.
+     * @return The buffer holding the encoded level, ready to be read.
+     * @throws IOException If the level cannot be stored without loss, e.g. a coordinate does not fit into int16.
+     */
+    public static ByteBuffer toBytes(GameData gameData) throws IOException {
+        List<byte[]> strings = new ArrayList<>();
+        Map<String, Short> indexes = new HashMap<>();
+        int size = 4 + 2 + 3 * 4 + 4 + 4;
+        for (Map.Entry<String, GameItem> entry : gameData.tiles.entrySet()) {
+            for (String s : new String[]{entry.getKey(), entry.getValue().fileName, entry.getValue().nextLevel}) {
+                if (s != null && !indexes.containsKey(s)) {
+                    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                    if (bytes.length > 0xFFFF || strings.size() >= Short.MAX_VALUE) {
+                        throw new IOException("Too many or too long strings in level");
+                    }
+                    indexes.put(s, (short) strings.size());
+                    strings.add(bytes);
+                    size += 2 + bytes.length;
+                }
+            }
+            GameItem item = entry.getValue();
+            size += 3 * 2 + 2 * 2 + 1 + 2 * 4 + 4 + item.coordCount() * 4;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putInt(gameData.START_POSITION_PLAYERX);
+        buffer.putInt(gameData.START_POSITION_PLAYERY);
+        buffer.putInt(gameData.START_ANIMATION_PHASE);
+        buffer.putInt(strings.size());
+        for (byte[] bytes : strings) {
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+        buffer.putInt(gameData.tiles.size());
+        for (Map.Entry<String, GameItem> entry : gameData.tiles.entrySet()) {
+            GameItem item = entry.getValue();
+            buffer.putShort(indexes.get(entry.getKey()));
+            buffer.putShort(item.fileName != null ? indexes.get(item.fileName) : -1);
+            buffer.putShort(item.nextLevel != null ? indexes.get(item.nextLevel) : -1);
+            buffer.putShort(toShort(item.width));
+            buffer.putShort(toShort(item.height));
+            buffer.put((byte) ((item.isDoorToTheNextLevel ? DOOR : 0) | (item.isCollision ? COLLISION : 0)
+                    | (item.isTouchable ? TOUCHABLE : 0) | (item.isTheEnd ? END : 0)));
+            buffer.putInt(item.nextX);
+            buffer.putInt(item.nextY);
+            if (item.packedCoords() == null) {
+                buffer.putInt(-1);
+            } else {
+                buffer.putInt(item.coordCount());
+                for (int c = 0; c < item.coordCount(); c++) {
+                    buffer.putShort(toShort(item.x(c)));
+                    buffer.putShort(toShort(item.y(c)));
+                }
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Converts a level from the JSON format into the binary level format.
+     *
+     * @param jsonPath The path of the JSON level.
+     * @param tglPath  The path of the .tgl file to write.
+     * @throws IOException If the level cannot be read or written.
+     */
+    public static void convert(Path jsonPath, Path tglPath) throws IOException {
+        GameData gameData = LevelParser.readLevel(jsonPath.toFile());
+        write(gameData, tglPath);
+        logger.info("Converted " + jsonPath + " (" + Files.size(jsonPath) + " bytes) to "
+                + tglPath + " (" + Files.size(tglPath) + " bytes)");
+    }
+
+    /**
+     * Converts the given JSON levels into the binary level format, next to the JSON files.
+     * The build runs it for the levels of the game after compiling.
+     *
+     * @param args The paths of the JSON levels, e.g. firstLevel.json.
+     */
+    public static void main(String[] args) throws IOException {
+        for (String arg : args) {
+            String base = arg.endsWith(".json") ? arg.substring(0, arg.length() - ".json".length()) : arg;
+            convert(Paths.get(base + ".json"), Paths.get(base + EXTENSION));
+        }
+    }
+
+    private static String string(String[] strings, short index) {
+        return index < 0 ? null : strings[index];
+    }
+
+    private static short toShort(int value) throws IOException {
+        if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+            throw new IOException("Value does not fit into the level file: " + value);
+        }
+        return (short) value;
+    }
+}
@@ -0,0 +1,199 @@
+package org.game.thegreatescape.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The LevelParser class reads levels and saved games in the JSON format with Jackson's streaming parser.
+ * Tiles are read straight into game items without building a tree or binding through reflection,
+ * and the coordinates of an item are read straight into its packed int array.
+ * Unknown fields are skipped.
+ */
+public final class LevelParser {
+    private static final JsonFactory jsonFactory = new JsonFactory(); // Shared by all loads, thread-safe
+
+    private LevelParser() {
+    }
+
+    /**
+     * Reads one level from the JSON file.
+     *
+     * @param file The level file.
+     * @return The level.
+     * @throws IOException If the file cannot be read or is not a level.
+     */
+    public static GameData readLevel(File file) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(file)) {
+            parser.nextToken();
+            return readGameData(parser);
+        }
+    }
+
+    /**
+     * Reads one level from the JSON stream.
+     *
+     * @param in The stream of the level.
+     * @return The level.
+     * @throws IOException If the stream cannot be read or is not a level.
+     */
+    public static GameData readLevel(InputStream in) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            parser.nextToken();
+            return readGameData(parser);
+        }
+    }
+
+    /**
+     * Reads the levels of a saved game, a JSON object mapping level names to levels.
+     *
+     * @param file The file of the saved game.
+     * @return The levels by name, in the order of the file.
+     * @throws IOException If the file cannot be read or is not a saved game.
+     */
+    public static Map<String, GameData> readLevels(File file) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(file)) {
+            parser.nextToken();
+            return readLevels(parser);
+        }
+    }
+
+    /**
+     * Reads a JSON object mapping level names to levels. The parser must be at the start of the object.
+     *
+     * @param parser The parser.
+     * @return The levels by name, in the order of the object.
+     * @throws IOException If the object is not a map of levels.
+     */
+    public static Map<String, GameData> readLevels(JsonParser parser) throws IOException {
+        expect(parser, JsonToken.START_OBJECT);
+        Map<String, GameData> levels = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            levels.put(name, readGameData(parser));
+        }
+        return levels;
+    }
+
+    /**
+     * Reads one level. The parser must be at the start of the level object.
+     *
+     * @param parser The parser.
+     * @return The level.
+     * @throws IOException If the object is not a level.
+     */
+    public static GameData readGameData(JsonParser parser) throws IOException {
+        expect(parser, JsonToken.START_OBJECT);
+        GameData gameData = new GameData();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "tiles" -> gameData.tiles = readTiles(parser);
+                case "START_POSITION_PLAYERX" -> gameData.START_POSITION_PLAYERX = parser.getValueAsInt();
+                case "START_POSITION_PLAYERY" -> gameData.START_POSITION_PLAYERY = parser.getValueAsInt();
+                case "START_ANIMATION_PHASE" -> gameData.START_ANIMATION_PHASE = parser.getValueAsInt();
+                default -> {
+                    if (token.isStructStart()) {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+        return gameData;
+    }
+
+    private static Map<String, GameItem> readTiles(JsonParser parser) throws IOException {
+        Map<String, GameItem> tiles = new LinkedHashMap<>();
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return tiles;
+        }
+        expect(parser, JsonToken.START_OBJECT);
+        int[] buffer = new int[64]; // Coordinates of the current item, reused for all items
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            GameItem item = new GameItem();
+            buffer = readItem(parser, item, buffer);
+            tiles.put(name, item);
+        }
+        return tiles;
+    }
+
+    private static int[] readItem(JsonParser parser, GameItem item, int[] buffer) throws IOException {
+        expect(parser, JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "fileName" -> item.fileName = parser.getValueAsString();
+                case "nextLevel" -> item.nextLevel = parser.getValueAsString();
+                case "width" -> item.width = parser.getValueAsInt();
+                case "height" -> item.height = parser.getValueAsInt();
+                case "nextX" -> item.nextX = parser.getValueAsInt();
+                case "nextY" -> item.nextY = parser.getValueAsInt();
+                case "isDoorToTheNextLevel" -> item.isDoorToTheNextLevel = parser.getValueAsBoolean();
+                case "isCollision" -> item.isCollision = parser.getValueAsBoolean();
+                case "isTouchable" -> item.isTouchable = parser.getValueAsBoolean();
+                case "isTheEnd" -> item.isTheEnd = parser.getValueAsBoolean();
+                case "coords" -> buffer = readCoords(parser, item, buffer);
+                default -> {
+                    if (token.isStructStart()) {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+        return buffer;
+    }
+
+    private static int[] readCoords(JsonParser parser, GameItem item, int[] buffer) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            item.setPackedCoords(null);
+            return buffer;
+        }
+        expect(parser, JsonToken.START_ARRAY);
+        int count = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            if (2 * count + 2 > buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int x = 0;
+            int y = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "x" -> x = parser.getValueAsInt();
+                    case "y" -> y = parser.getValueAsInt();
+                    default -> {
+                        if (token.isStructStart()) {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            }
+            buffer[2 * count] = x;
+            buffer[2 * count + 1] = y;
+            count++;
+        }
+        expect(parser, JsonToken.END_ARRAY);
+        item.setPackedCoords(Arrays.copyOf(buffer, 2 * count));
+        return buffer;
+    }
+
+    private static void expect(JsonParser parser, JsonToken expected) throws IOException {
+        if (parser.currentToken() != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + parser.currentToken());
+        }
+    }
+}
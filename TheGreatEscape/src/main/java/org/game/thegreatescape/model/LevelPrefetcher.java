@@ -0,0 +1,131 @@
+package org.game.thegreatescape.model;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * The LevelPrefetcher class loads the level behind a door in the background while the player walks towards it,
+ * so entering the level does not have to wait for the file to be parsed or its images to be decoded.
+ * <p>
+ * A prefetch is a hit if the level was ready when the player entered it, and wasted if the player
+ * entered a different level instead.
+ */
+public class LevelPrefetcher {
+    static Logger logger = Logger.getLogger(LevelPrefetcher.class.getName());
+
+    public static final int DISTANCE_TILES = 2; // Distance to a door at which its level is prefetched
+    public static final int DISTANCE = DISTANCE_TILES * TileGrid.CELL_SIZE;
+
+    // One background thread shared by all games, it must not keep the application alive
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "level-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LevelRepository levelRepository;
+    private volatile Consumer<GameData> assetWarmer; // Decodes the images of a level, set by the view
+
+    private final Set<String> requested = ConcurrentHashMap.newKeySet(); // Levels prefetched since the last level change
+    private final Set<String> completed = ConcurrentHashMap.newKeySet(); // Requested levels which are ready
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong wasted = new AtomicLong();
+
+    /**
+     * Constructor of a LevelPrefetcher loading levels into the given repository.
+     *
+     * @param levelRepository The repository which keeps the prefetched levels.
+     */
+    public LevelPrefetcher(LevelRepository levelRepository) {
+        this.levelRepository = levelRepository;
+    }
+
+    /**
+     * Set the function which decodes the images of a prefetched level. It is called on the background thread.
+     *
+     * @param assetWarmer The function, or null to only parse the levels.
+     */
+    public void setAssetWarmer(Consumer<GameData> assetWarmer) {
+        this.assetWarmer = assetWarmer;
+    }
+
+    /**
+     * Starts loading the level in the background, unless it was already requested.
+     *
+     * @param levelName The name of the level.
+     */
+    public void prefetch(String levelName) {
+        if (levelName == null || requested.contains(levelName) || !requested.add(levelName)) {
+            return;
+        }
+        logger.info("Prefetching level: " + levelName);
+        executor.execute(() -> {
+            GameData level = levelRepository.preload(levelName);
+            Consumer<GameData> warmer = assetWarmer;
+            if (level != null && warmer != null) {
+                warmer.accept(level);
+            }
+            completed.add(levelName);
+        });
+    }
+
+    /**
+     * Records that the player enters a level for the first time and updates the metrics.
+     * All other levels prefetched since the last level change are counted as wasted.
+     *
+     * @param levelName The name of the entered level.
+     */
+    public void levelEntered(String levelName) {
+        if (completed.contains(levelName)) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        for (String other : requested) {
+            if (!other.equals(levelName)) {
+                wasted.incrementAndGet();
+            }
+        }
+        requested.clear();
+        completed.clear();
+    }
+
+    /**
+     * Checks if the level was prefetched and is ready.
+     *
+     * @param levelName The name of the level.
+     * @return true if the level was prefetched since the last level change and is ready.
+     */
+    public boolean isReady(String levelName) {
+        return completed.contains(levelName);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getWasted() {
+        return wasted.get();
+    }
+
+    /**
+     * Get the share of first entries into a level which found the level ready.
+     *
+     * @return The hit rate between 0 and 1, or 0 if no level was entered yet.
+     */
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+}
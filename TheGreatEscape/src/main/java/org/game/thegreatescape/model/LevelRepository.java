@@ -0,0 +1,209 @@
+package org.game.thegreatescape.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.logging.Logger;
+
+/**
+ * The LevelRepository class loads levels on demand and keeps the most recently used parsed levels in memory.
+ * The cached levels are never changed: every caller gets its own copy, so the state of a game
+ * can change freely while the next game still starts from the original level.
+ * The repository may be used from several threads.
+ */
+public class LevelRepository {
+    static Logger logger = Logger.getLogger(LevelRepository.class.getName());
+
+    public static final int DEFAULT_CAPACITY = 8; // Number of parsed levels kept by the shared repository
+
+    private static final LevelRepository shared = new LevelRepository(DEFAULT_CAPACITY);
+
+    private final int capacity;
+    private final LinkedHashMap<String, GameData> cache; // Parsed levels in access order, the eldest is evicted first
+    private final Map<String, Long> versions = new HashMap<>(); // Checksum of every level parsed so far, never evicted
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructor of a LevelRepository keeping at most the given number of parsed levels.
+     *
+     * @param capacity The maximum number of parsed levels kept in memory.
+     */
+    public LevelRepository(int capacity) {
+        this.capacity = capacity;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, GameData> eldest) {
+                return size() > LevelRepository.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Get the repository shared by all games of the application.
+     *
+     * @return The shared level repository.
+     */
+    public static LevelRepository getShared() {
+        return shared;
+    }
+
+    /**
+     * Loads the level with the given name. The level is parsed on the first request
+     * and served from memory afterwards, as long as it was not evicted.
+     *
+     * @param levelName The name of the level.
+     * @return A copy of the level which belongs to the caller, or null if the level cannot be loaded.
+     */
+    public GameData load(String levelName) {
+        GameData level = getParsed(levelName);
+        return level != null ? level.copy() : null;
+    }
+
+    /**
+     * Makes sure the level with the given name is parsed and kept in memory, without copying it.
+     *
+     * @param levelName The name of the level.
+     * @return The cached level, which must not be changed, or null if the level cannot be loaded.
+     */
+    public GameData preload(String levelName) {
+        return getParsed(levelName);
+    }
+
+    /**
+     * Get the version of the pristine level, a checksum of its content computed once when it is parsed.
+     * A saved game stores it to notice levels which were changed after the game was saved.
+     *
+     * @param levelName The name of the level.
+     * @return The version of the level, or 0 if the level cannot be loaded.
+     */
+    public long getVersion(String levelName) {
+        synchronized (this) {
+            Long version = versions.get(levelName);
+            if (version != null) {
+                return version;
+            }
+        }
+        if (getParsed(levelName) == null) {
+            return 0;
+        }
+        synchronized (this) {
+            return versions.getOrDefault(levelName, 0L);
+        }
+    }
+
+    /**
+     * Checks if the level with the given name is kept in memory.
+     *
+     * @param levelName The name of the level.
+     * @return true if the level is parsed and was not evicted.
+     */
+    public synchronized boolean isCached(String levelName) {
+        return cache.containsKey(levelName);
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Removes all parsed levels from memory.
+     */
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Get the parsed level from the cache, or parse it on a miss.
+     * The file is parsed outside the lock, so a slow load does not block requests for other levels.
+     */
+    private GameData getParsed(String levelName) {
+        synchronized (this) {
+            GameData level = cache.get(levelName);
+            if (level != null) {
+                hits++;
+                return level;
+            }
+            misses++;
+        }
+        GameData level = read(levelName);
+        if (level == null) {
+            return null;
+        }
+        long version = checksum(level);
+        synchronized (this) {
+            versions.put(levelName, version);
+            GameData other = cache.putIfAbsent(levelName, level);
+            return other != null ? other : level;
+        }
+    }
+
+    /**
+     * Computes a checksum over everything of the level which a saved game relies on.
+     */
+    static long checksum(GameData level) {
+        CRC32 crc = new CRC32();
+        for (Map.Entry<String, GameItem> entry : level.tiles.entrySet()) {
+            GameItem item = entry.getValue();
+            crc.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+            crc.update(String.valueOf(item.fileName).getBytes(StandardCharsets.UTF_8));
+            crc.update((item.isCollision ? 1 : 0) | (item.isTouchable ? 2 : 0)
+                    | (item.isDoorToTheNextLevel ? 4 : 0) | (item.isTheEnd ? 8 : 0));
+            ByteBuffer coords = ByteBuffer.allocate(4 * 2 * item.coordCount());
+            for (int c = 0; c < item.coordCount(); c++) {
+                coords.putInt(item.x(c)).putInt(item.y(c));
+            }
+            crc.update(coords.flip());
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Reads the level with the given name from its file.
+     * The binary level file is preferred, unless the JSON file was changed after it was converted.
+     *
+     * @param levelName The name of the level.
+     * @return The parsed level, or null if the file cannot be read.
+     */
+    GameData read(String levelName) {
+        Path jsonPath = Paths.get(levelName + ".json");
+        Path binaryPath = Paths.get(levelName + LevelFile.EXTENSION);
+        try {
+            if (Files.exists(binaryPath) && (!Files.exists(jsonPath)
+                    || Files.getLastModifiedTime(binaryPath).compareTo(Files.getLastModifiedTime(jsonPath)) >= 0)) {
+                try {
+                    GameData level = LevelFile.read(binaryPath);
+                    logger.info("Successfully loaded binary game data for level: " + levelName);
+                    return level;
+                } catch (IOException e) {
+                    logger.warning("Error loading binary game data for level: " + levelName + ", using JSON " + e);
+                }
+            }
+            GameData level = LevelParser.readLevel(jsonPath.toFile());
+            logger.info("Successfully loaded game data for level: " + levelName);
+            return level;
+        } catch (IOException e) {
+            logger.severe("Error loading game data for level: " + levelName + " " + e);
+            return null;
+        }
+    }
+}
@@ -1,42 +1,79 @@
 package org.game.thegreatescape.model;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import javafx.scene.shape.Rectangle;
-import javafx.util.Pair;
-
-import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Logger;
 
-import org.game.thegreatescape.view.Game;
-import org.json.JSONObject;
-
 /**
  * The Model class represents the backend logic of the game.
  * It manages game data, player movement, level transitions, and game events.
  */
 public class Model {
-    Logger logger = Logger.getLogger(Game.class.getName());
-
-    private final String[] levels = {"firstLevel", "secondLevel", "thirdLevel", "fourthLevel"};
-    private HashMap<String, GameData> gd = new HashMap<String, GameData>();
+    Logger logger = Logger.getLogger(Model.class.getName());
+
+    private static final String[] levels = {"firstLevel", "secondLevel", "thirdLevel", "fourthLevel"};
+    public static final int LEVEL_COUNT = levels.length; // Number of levels, the level numbers start at 1
+    private final LevelRepository levelRepository;
+    private final LevelPrefetcher prefetcher;
+    private final SaveService saveService;
+    private final SaveService recoveryService; // Writes the state the journal is replayed onto
+    // Changes since the state in the recovery file, null if the game is not journaled.
+    // Closed by the save thread when the game is left, so every method reads it once.
+    private volatile Journal journal;
+    private SaveGame loadedSave; // The saved game the model was loaded from, null for a new game
+    private boolean recovered; // The model was loaded from the recovery file and continues its journal
+    private volatile boolean compacting; // The journal is being compacted in the background
+    private Map<String, GameData> gd = new ConcurrentHashMap<>(); // State of the visited levels, loaded on first entry
     private final Character player;
     private String level;
     private boolean closePanel = false;
     private final LinkedList<Integer> buttonSequence = new LinkedList<Integer>();
+    private boolean buttonSequenceMatches = false;
     LinkedList<Integer> randomList = new LinkedList<Integer>();
     String randomSequence = randomList();
     Random random = new Random();
 
     private boolean gameIsEnd = false;
+    private long chestTimerDeadline = -1; // System.nanoTime() at which the chest timer runs out, -1 if it does not run
+
+    // Items whose appearance changed since the simulation last published the level, per level
+    private final ConcurrentHashMap<String, ConcurrentLinkedQueue<GameItem>> changedItems = new ConcurrentHashMap<>();
+
+    // Spatial index over the tiles of every visited level, the renderer queries copies of it
+    private final ConcurrentHashMap<String, TileGrid> tileGrids = new ConcurrentHashMap<>();
+
+    // Doors, touchable objects and portals of every visited level
+    private final HashMap<String, TriggerRegistry> triggers = new HashMap<>();
+
+    // Incremented whenever flags of an item change, so cached trigger results know they are stale
+    private int triggersVersion = 0;
+
+    // Player position, level and triggers version seen by the last evaluation of doors and portals
+    private int evaluatedX = Integer.MIN_VALUE;
+    private int evaluatedY = Integer.MIN_VALUE;
+    private String evaluatedLevel;
+    private int evaluatedVersion = -1;
 
-    static String savedNameLevel;
-    static int savedPlayerX;
-    static int savedPlayerY;
+    // Touchable object near the player and the state it was found for
+    private GameItem nearTouchable;
+    private int nearX = Integer.MIN_VALUE;
+    private int nearY = Integer.MIN_VALUE;
+    private String nearLevel;
+    private int nearVersion = -1;
+
+    public static final String SAVE_FILE = "saveGame.json";
+    public static final String JOURNAL_FILE = "saveGame.journal"; // Next to the saved game
+    public static final String RECOVERY_FILE = "saveGame.recovery.json"; // State the journal continues, next to it
+    public static final long COMPACT_SIZE = 64 * 1024; // Size of the journal at which it is compacted into the recovery file
+
+    public static final int CHEST_TIMER_SECONDS = 60; // Time to take the key from the chest of the third level
 
     /**
      * Constructor of Model object with the specified level number (Used by new game).
@@ -44,11 +81,34 @@ public class Model {
      * @param levelNumber The level number to start the game.
      */
     public Model(int levelNumber) {
+        this(levelNumber, LevelRepository.getShared());
+    }
+
+    /**
+     * Constructor of Model object with the specified level number, loading levels from the given repository.
+     * Only the starting level is loaded, the other levels are loaded when the player enters them.
+     *
+     * @param levelNumber     The level number to start the game.
+     * @param levelRepository The repository to load the levels from.
+     */
+    public Model(int levelNumber, LevelRepository levelRepository) {
+        this(levelNumber, levelRepository, Paths.get(SAVE_FILE));
+    }
+
+    /**
+     * Constructor of Model object with the specified level number, which saves the game to the given file.
+     *
+     * @param levelNumber     The level number to start the game.
+     * @param levelRepository The repository to load the levels from.
+     * @param saveFile        The file of the saved game, the journal is kept next to it.
+     */
+    public Model(int levelNumber, LevelRepository levelRepository, Path saveFile) {
+        this.levelRepository = levelRepository;
+        this.saveService = new SaveService(saveFile);
+        this.recoveryService = new SaveService(saveFile.resolveSibling(RECOVERY_FILE));
+        this.prefetcher = new LevelPrefetcher(levelRepository);
         this.level = levels[levelNumber - 1];
-        for (String gameLevel : levels) {
-            loadGameData(gameLevel);
-        }
-        GameData currentGd = gd.get(level);
+        GameData currentGd = levelData(level);
         player = new Character(currentGd.START_POSITION_PLAYERX, currentGd.START_POSITION_PLAYERY, Direction.STAY, currentGd.START_ANIMATION_PHASE);
         logger.info("Model for new game was successful");
     }
@@ -57,13 +117,90 @@ public class Model {
      * Constructor of Model object with the specified level number (Used by load game).
      */
     public Model() {
-        loadSavedGameData();
-        this.level = savedNameLevel;
-        GameData currentGd = gd.get(level);
-        player = new Character(savedPlayerX, savedPlayerY, Direction.STAY, 0);
+        this(Paths.get(SAVE_FILE), LevelRepository.getShared());
+    }
+
+    /**
+     * Constructor of Model object loading the game from the given file.
+     * The changes recorded in the journal are not replayed, see {@link #recover(Path, LevelRepository)}.
+     *
+     * @param saveFile        The file of the saved game, the journal is kept next to it.
+     * @param levelRepository The repository to load the levels from.
+     */
+    public Model(Path saveFile, LevelRepository levelRepository) {
+        this(saveFile, saveFile, levelRepository);
+    }
+
+    /**
+     * Constructor of Model object loading the game from the given file, which saves the game to another file.
+     *
+     * @param saveFile        The file of the saved game, the journal is kept next to it.
+     * @param loadFile        The file to load the game from, e.g. the recovery file.
+     * @param levelRepository The repository to load the levels from.
+     */
+    private Model(Path saveFile, Path loadFile, LevelRepository levelRepository) {
+        this.levelRepository = levelRepository;
+        this.saveService = new SaveService(saveFile);
+        this.recoveryService = new SaveService(saveFile.resolveSibling(RECOVERY_FILE));
+        this.prefetcher = new LevelPrefetcher(levelRepository);
+        loadedSave = loadSavedGameData(loadFile);
+        if (loadedSave.level == null || levelData(loadedSave.level) == null) {
+            // A saved game without a level which can be loaded starts at the first level
+            logger.warning("Saved game has no level which can be loaded, starting at the first level: " + loadedSave.level);
+            GameData firstGd = levelData(levels[0]);
+            loadedSave.level = levels[0];
+            loadedSave.playerX = firstGd.START_POSITION_PLAYERX;
+            loadedSave.playerY = firstGd.START_POSITION_PLAYERY;
+        }
+        this.level = loadedSave.level;
+        player = new Character(loadedSave.playerX, loadedSave.playerY, Direction.STAY, 0);
+        player.getInventory().addAll(loadedSave.inventory);
+        if (loadedSave.version >= 3) {
+            closePanel = loadedSave.closePanel;
+            randomSequence = loadedSave.randomSequence;
+            buttonSequence.addAll(loadedSave.buttonSequence);
+            if (loadedSave.chestTimerMillis >= 0) {
+                chestTimerDeadline = System.nanoTime() + loadedSave.chestTimerMillis * 1_000_000;
+            }
+        }
         logger.info("Model for load game was successful");
     }
 
+    /**
+     * Loads the game which crashed while it was played, or the saved game if no game crashed.
+     *
+     * @return The loaded model.
+     */
+    public static Model recover() {
+        return recover(Paths.get(SAVE_FILE), LevelRepository.getShared());
+    }
+
+    /**
+     * Loads the game which crashed while it was played: the state in the recovery file is loaded and
+     * the changes recorded in the journal since are replayed. The recovery file and the journal only exist
+     * while a game is played, so without them the saved game is loaded.
+     * The journal is replayed once the model is constructed, as it calls the methods of the model.
+     *
+     * @param saveFile        The file of the saved game, the journal and the recovery file are kept next to it.
+     * @param levelRepository The repository to load the levels from.
+     * @return The loaded model.
+     */
+    public static Model recover(Path saveFile, LevelRepository levelRepository) {
+        Path recoveryFile = saveFile.resolveSibling(RECOVERY_FILE);
+        if (Files.exists(recoveryFile)) {
+            try {
+                Model model = new Model(saveFile, recoveryFile, levelRepository);
+                model.replayJournal();
+                model.recovered = true;
+                model.logger.info("Game recovered from " + recoveryFile);
+                return model;
+            } catch (RuntimeException e) {
+                Logger.getLogger(Model.class.getName()).severe("Game cannot be recovered, loading the saved game: " + e);
+            }
+        }
+        return new Model(saveFile, levelRepository);
+    }
+
     public Character getPlayer() {
         return player;
     }
@@ -73,48 +210,148 @@ public class Model {
     public boolean isClosePanel() {
         return closePanel;
     }
+    public String getRandomSequence() {
+        return randomSequence;
+    }
     public String getLevel() {
         return level;
     }
     public GameData getGd() {
-        return gd.get(level);
+        return levelData(level);
+    }
+    public LevelPrefetcher getPrefetcher() {
+        return prefetcher;
     }
 
+    /**
+     * Get the spatial index over the tiles of the current level.
+     * The index is built on the first request for every level.
+     *
+     * @return The tile grid of the current level.
+     */
+    public TileGrid getTileGrid() {
+        return getTileGrid(level);
+    }
 
     /**
-     * Loads game data from a JSON file for the specified level.
+     * Get the spatial index over the tiles of the specified level.
      *
-     * @param levelName The name of the level for which to load the game data.
+     * @param levelName The name of the level.
+     * @return The tile grid of the level.
      */
-    private void loadGameData(String levelName) {
-        ObjectMapper objectMapper = new ObjectMapper(); //objectMapper transform data to json and back
-        try {
-            gd.put(levelName, objectMapper.readValue(new File(levelName + ".json"), GameData.class));
-            logger.info("Successfully loaded game data for level: " + levelName);
-        } catch (IOException e) {
-            logger.severe("Error loading game data for level: " + levelName  + " " + e);
+    public TileGrid getTileGrid(String levelName) {
+        TileGrid grid = tileGrids.get(levelName);
+        if (grid == null) {
+            TileGrid created = new TileGrid(levelData(levelName));
+            grid = tileGrids.putIfAbsent(levelName, created);
+            if (grid == null) {
+                grid = created;
+            }
         }
+        return grid;
     }
 
-    private void loadSavedGameData() {
-        try {
-            logger.info("Loading Saved game data.");
+    /**
+     * Get the registry of doors, touchable objects and portals of the current level.
+     * The registry is built on the first request for every level.
+     *
+     * @return The trigger registry of the current level.
+     */
+    public TriggerRegistry getTriggers() {
+        TriggerRegistry registry = triggers.get(level);
+        if (registry == null) {
+            registry = new TriggerRegistry(levelData(level));
+            triggers.put(level, registry);
+        }
+        return registry;
+    }
 
-            ObjectMapper mapper = new ObjectMapper();
-            File fileObj = new File("saveGame.json");
-            File saveGamePlayer = new File("saveGamePlayer.json");
-            TypeReference<HashMap<String, GameData>> typeRef   = new TypeReference<HashMap<String, GameData>>() {};
-            gd = mapper.readValue(fileObj, typeRef);
+    /**
+     * Updates the tile grid and the trigger registry of the specified level after the flags of the item changed.
+     * Indexes which were not built yet are skipped, they will see the new flags when they are built.
+     *
+     * @param levelName The name of the level containing the item.
+     * @param item      The changed item.
+     */
+    private void refreshIndexes(String levelName, GameItem item) {
+        triggersVersion++;
+        TileGrid grid = tileGrids.get(levelName);
+        if (grid != null) {
+            grid.refresh(item);
+        }
+        TriggerRegistry registry = triggers.get(levelName);
+        if (registry != null) {
+            registry.refresh(item);
+        }
+    }
 
-            String jsonString = new String(Files.readAllBytes(Paths.get("saveGamePlayer.json")));
-            JSONObject jsonObject = new JSONObject(jsonString);
+    /**
+     * Returns the items of the specified level whose appearance changed since the last call and forgets them.
+     * The simulation uses it to publish new file names of the items, so the renderer repaints only the affected cells.
+     *
+     * @param levelName The name of the level.
+     * @return The changed items, or an empty list if nothing changed.
+     */
+    public List<GameItem> pollChangedItems(String levelName) {
+        ConcurrentLinkedQueue<GameItem> queue = changedItems.get(levelName);
+        if (queue == null || queue.isEmpty()) {
+            return Collections.emptyList();
+        }
+        ArrayList<GameItem> changed = new ArrayList<>();
+        GameItem item;
+        while ((item = queue.poll()) != null) {
+            changed.add(item);
+        }
+        return changed;
+    }
+
+    /**
+     * Remembers that the appearance of the item in the specified level changed.
+     *
+     * @param levelName The name of the level containing the item.
+     * @param item      The changed item.
+     */
+    private void markChanged(String levelName, GameItem item) {
+        changedItems.computeIfAbsent(levelName, k -> new ConcurrentLinkedQueue<>()).add(item);
+    }
 
-            savedNameLevel = jsonObject.getString("savedLevel");
-            savedPlayerX = jsonObject.getInt("savedPlayerPositionX");
-            savedPlayerY = jsonObject.getInt("savedPlayerPositionY");
 
-            logger.info("Saved level: " + savedNameLevel + ", Saved player position X: " + savedPlayerX + ", Saved player position Y: " + savedPlayerY);
+    /**
+     * Get the game data of the specified level. A level is loaded from the level repository when it is entered
+     * for the first time, afterwards its state is kept for the rest of the game.
+     *
+     * @param levelName The name of the level.
+     * @return The game data of the level, or null if the level cannot be loaded.
+     */
+    private GameData levelData(String levelName) {
+        GameData data = gd.get(levelName);
+        if (data == null) {
+            GameData loaded = levelRepository.load(levelName);
+            if (loaded == null) {
+                return null;
+            }
+            data = gd.putIfAbsent(levelName, loaded);
+            if (data == null) {
+                data = loaded;
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Reads the saved game and restores the visited levels from it.
+     *
+     * @param file The file of the saved game.
+     * @return The saved game.
+     */
+    private SaveGame loadSavedGameData(Path file) {
+        try {
+            logger.info("Loading Saved game data.");
+            SaveGame save = SaveGame.read(file.toFile());
+            gd = new ConcurrentHashMap<>(save.restore(levelRepository));
+            logger.info("Saved level: " + save.level + ", Saved player position X: " + save.playerX + ", Saved player position Y: " + save.playerY);
             logger.info("Saved game data loaded successfully.");
+            return save;
         } catch (IOException e) {
             logger.severe("Error occurred while loading saved game data: " + e);
             throw new RuntimeException(e);
@@ -143,22 +380,52 @@ public class Model {
 
     /**
      * Updates the game state, including checking for level transitions and game events.
+     * Doors and portals are only checked again after the player moved or flags of an item changed,
+     * so frames in which nothing happened do almost no work.
      * If the player touches a door, it changes the level accordingly.
      * If the button sequence matches the random sequence, it closes the panel.
      * If the current level is the fourth level, it checks if the player has touched the portal to end the game.
      */
     public void update() {
-        changeLevelIfDoorToNextLevel();
-        if (buttonSequence.toString().equals(randomSequence)) {
+        if (player.getCharacterX() != evaluatedX || player.getCharacterY() != evaluatedY
+                || !level.equals(evaluatedLevel) || triggersVersion != evaluatedVersion) {
+            if (!changeLevelIfDoorToNextLevel()) {
+                prefetchNearDoor();
+            }
+            if (getLevel().equals("fourthLevel")) {
+                checkIfPortalTouched();
+            }
+            evaluatedX = player.getCharacterX();
+            evaluatedY = player.getCharacterY();
+            evaluatedLevel = level;
+            evaluatedVersion = triggersVersion;
+            Journal current = journal;
+            if (current != null) {
+                current.appendPosition(evaluatedX, evaluatedY);
+                if (current.getSize() >= COMPACT_SIZE && !compacting) {
+                    compactJournal(current);
+                }
+            }
+        }
+
+        if (buttonSequenceMatches) {
             logger.info("Button sequence matches random sequence. Closing panel...");
-            closePanel = true;
-            unsetTouching("secondLevel", "panel.png");
-            randomSequence = null;
+            solvePanel();
         }
+    }
 
-        if (getLevel().equals("fourthLevel")) {
-            checkIfPortalTouched();
+    /**
+     * Closes the panel after its sequence was solved.
+     */
+    void solvePanel() {
+        Journal current = journal;
+        if (current != null) {
+            current.append(Journal.CLOSE_PANEL);
         }
+        buttonSequenceMatches = false;
+        closePanel = true;
+        unsetTouching("secondLevel", "panel.png");
+        randomSequence = null;
     }
 
     /**
@@ -166,7 +433,7 @@ public class Model {
      * If there is no collision, the player character's vertical position is decremented by its speed.
      */
     public void goUp() {
-        if (!isCollision(new Rectangle(player.getCharacterX(), player.getCharacterY() - player.getSPEED(), player.getHEIGHT(), player.getWIDTH()))) {
+        if (!isCollision(player.getCharacterX(), player.getCharacterY() - player.getSPEED())) {
             player.goUp();
         }
     }
@@ -176,7 +443,7 @@ public class Model {
      * If there is no collision, the player character's horizontal position is incremented by its speed.
      */
     public void goRight() {
-        if (!isCollision(new Rectangle(player.getCharacterX() + player.getSPEED(), player.getCharacterY(), player.getHEIGHT(), player.getWIDTH()))) {
+        if (!isCollision(player.getCharacterX() + player.getSPEED(), player.getCharacterY())) {
             player.goRight();
         }
     }
@@ -186,7 +453,7 @@ public class Model {
      * If there is no collision, the player character's horizontal position is decremented by its speed.
      */
     public void goLeft() {
-        if (!isCollision(new Rectangle(player.getCharacterX() - player.getSPEED(), player.getCharacterY(), player.getHEIGHT(), player.getWIDTH()))) {
+        if (!isCollision(player.getCharacterX() - player.getSPEED(), player.getCharacterY())) {
             player.goLeft();
         }
     }
@@ -196,30 +463,21 @@ public class Model {
      * If there is no collision, the player character's vertical position is incremented by its speed.
      */
     public void goDown() {
-        if (!isCollision(new Rectangle(player.getCharacterX(), player.getCharacterY() + player.getSPEED(), player.getHEIGHT(), player.getWIDTH()))) {
+        if (!isCollision(player.getCharacterX(), player.getCharacterY() + player.getSPEED())) {
             player.goDown();
         }
     }
 
     /**
      * Checks for collision between the player character and game objects.
+     * The tile grid of the current level is used, so only the cells around the player are checked.
      *
-     * @param playerRectangle The rectangle representing the player character's bounding box.
+     * @param x The x-coordinate of the player character's bounding box.
+     * @param y The y-coordinate of the player character's bounding box.
      * @return true if there is a collision between the player character and any game object, false otherwise.
      */
-    private boolean isCollision(Rectangle playerRectangle) {
-        GameData currentGd = gd.get(level);
-        for (GameItem item : currentGd.tiles.values()) {
-            if (item.isCollision) {
-                for (Coord crd : item.coords) {
-                    Rectangle itemRectangle = new Rectangle(crd.x, crd.y, item.height, item.width);
-                    if (playerRectangle.getBoundsInParent().intersects(itemRectangle.getBoundsInParent())) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+    private boolean isCollision(int x, int y) {
+        return getTileGrid().isCollision(x, y, player.getHEIGHT(), player.getWIDTH());
     }
 
     /**
@@ -229,26 +487,41 @@ public class Model {
      * @return true if the player transitions to the next level, false otherwise.
      */
     private boolean changeLevelIfDoorToNextLevel() {
-        Rectangle playerRectangle = new Rectangle(player.getCharacterX(), player.getCharacterY(), player.getHEIGHT(), player.getWIDTH());
-        GameData currentGd = gd.get(level);
-        for (GameItem item : currentGd.tiles.values()) {
-            if (item.isDoorToTheNextLevel) {
-                for (Coord crd : item.coords) {
-                    Rectangle itemRectangle = new Rectangle(crd.x, crd.y, item.height, item.width);
-                    if (playerRectangle.getBoundsInParent().intersects(itemRectangle.getBoundsInParent())) {
-                        logger.info("Player collided with door to the next level.");
-                        level = item.nextLevel;
-                        logger.info("Next level is " + level);
-                        player.setCharacterX(item.nextX);
-                        player.setCharacterY(item.nextY);
-                        return true;
-                    }
-                }
+        GameItem item = getTriggers().find(TriggerRegistry.DOOR, player.getCharacterX(), player.getCharacterY(),
+                player.getHEIGHT(), player.getWIDTH(), 0, 0);
+        if (item != null) {
+            logger.info("Player collided with door to the next level.");
+            if (!gd.containsKey(item.nextLevel)) {
+                prefetcher.levelEntered(item.nextLevel);
+            }
+            // Load the level before the next snapshot is published, so the renderer never has to load it
+            levelData(item.nextLevel);
+            level = item.nextLevel;
+            logger.info("Next level is " + level);
+            player.setCharacterX(item.nextX);
+            player.setCharacterY(item.nextY);
+            Journal current = journal;
+            if (current != null) {
+                current.appendLevel(level, item.nextX, item.nextY);
             }
+            return true;
         }
         return false;
     }
 
+    /**
+     * Starts loading the level behind a door in the background when the player comes close to the door.
+     * Levels which were already visited are not loaded again.
+     */
+    private void prefetchNearDoor() {
+        GameItem door = getTriggers().find(TriggerRegistry.DOOR,
+                player.getCharacterX() - LevelPrefetcher.DISTANCE, player.getCharacterY() - LevelPrefetcher.DISTANCE,
+                player.getHEIGHT() + 2 * LevelPrefetcher.DISTANCE, player.getWIDTH() + 2 * LevelPrefetcher.DISTANCE, 0, 0);
+        if (door != null && door.nextLevel != null && !gd.containsKey(door.nextLevel)) {
+            prefetcher.prefetch(door.nextLevel);
+        }
+    }
+
     /**
      * Checks if the player character is near a touchable object and returns its filename if found.
      * A touchable object is an interactive game item that the player can interact with.
@@ -256,41 +529,37 @@ public class Model {
      * @return The filename of the touchable object if the player is near one, null otherwise.
      */
     public String ifNearToTouchableObject() {
-        Rectangle playerRectangle = new Rectangle(player.getCharacterX(), player.getCharacterY(), player.getHEIGHT(), player.getWIDTH());
-        GameData currentGd = gd.get(level);
-        for (GameItem item : currentGd.tiles.values()) {
-            if (item.isTouchable) {
-                for (Coord crd : item.coords) {
-                    Rectangle itemRectangle = new Rectangle(crd.x + 10, crd.y + 20, item.height, item.width);
-                    if (playerRectangle.getBoundsInParent().intersects(itemRectangle.getBoundsInParent())) {
-                        return item.fileName;
-                    }
-                }
-            }
-        }
-        return null;
+        GameItem item = findNearTouchableObject();
+        return item != null ? item.fileName : null;
     }
 
     /**
-     * Checks if the player character is near a touchable object and returns a pair indicating its proximity and coordinates.
+     * Finds the touchable object the player character is near to.
+     * The result is cached and only searched again after the player moved or flags of an item changed.
      *
-     * @return A pair where the first element indicates whether the player is near a touchable object (true) or not (false),
-     * and the second element contains the coordinates of the touchable object if the player is near one, or null otherwise.
+     * @return The touchable object, or null if the player is not near one.
      */
-    public Pair<Boolean, Coord[]> ifNearToTouchableObjectForText() {
-        Rectangle playerRectangle = new Rectangle(player.getCharacterX(), player.getCharacterY(), player.getHEIGHT(), player.getWIDTH());
-        GameData currentGd = gd.get(level);
-        for (GameItem item : currentGd.tiles.values()) {
-            if (item.isTouchable) {
-                for (Coord crd : item.coords) {
-                    Rectangle itemRectangle = new Rectangle(crd.x + 10, crd.y + 20, item.height, item.width);
-                    if (playerRectangle.getBoundsInParent().intersects(itemRectangle.getBoundsInParent())) {
-                        return new Pair<>(true, item.coords);
-                    }
-                }
-            }
+    private GameItem findNearTouchableObject() {
+        if (player.getCharacterX() != nearX || player.getCharacterY() != nearY
+                || !level.equals(nearLevel) || triggersVersion != nearVersion) {
+            nearTouchable = getTriggers().find(TriggerRegistry.TOUCHABLE, player.getCharacterX(), player.getCharacterY(),
+                    player.getHEIGHT(), player.getWIDTH(), 10, 20);
+            nearX = player.getCharacterX();
+            nearY = player.getCharacterY();
+            nearLevel = level;
+            nearVersion = triggersVersion;
         }
-        return new Pair<>(false, null);
+        return nearTouchable;
+    }
+
+    /**
+     * Get the coordinates of the touchable object the player character is near to, e.g. to place a hint text.
+     *
+     * @return The interleaved x and y of the touchable object if the player is near one, null otherwise.
+     */
+    public int[] ifNearToTouchableObjectForText() {
+        GameItem item = findNearTouchableObject();
+        return item != null ? item.packedCoords() : null;
     }
 
     /**
@@ -301,12 +570,18 @@ public class Model {
      */
     public void collectKey(String levelName) {
         logger.info("Collecting key in level: " + levelName);
-        GameData currentGd = gd.get(levelName);
+        Journal current = journal;
+        if (current != null) {
+            current.append(Journal.COLLECT_KEY, levelName);
+        }
+        GameData currentGd = levelData(levelName);
         for (GameItem item : currentGd.tiles.values()) {
             if (item.fileName.equals("ChestWithKey.png")) {
                 logger.info("Key found! Collecting...");
                 item.fileName = "OpenEmptyChest.png";
                 item.isTouchable = false;
+                markChanged(levelName, item);
+                refreshIndexes(levelName, item);
                 logger.info("Key collected successfully.");
             }
         }
@@ -321,12 +596,18 @@ public class Model {
      */
     public void openChests(String levelName) {
         logger.info("Opening chests in level: " + levelName);
-        GameData currentGd = gd.get(levelName);
+        Journal current = journal;
+        if (current != null) {
+            current.append(Journal.OPEN_CHESTS, levelName);
+        }
+        GameData currentGd = levelData(levelName);
         for (GameItem item : currentGd.tiles.values()) {
             if (item.fileName.equals("ClosedChest.png")) {
                 logger.info("Chest found! Opening...");
                 item.fileName = "ChestWithKey.png";
                 item.isTouchable = true;
+                markChanged(levelName, item);
+                refreshIndexes(levelName, item);
                 logger.info("Chest opened successfully.");
 
             }
@@ -342,12 +623,18 @@ public class Model {
      */
     public void closeChest(String levelName) {
         logger.info("Closing chests in level: " + levelName);
-        GameData currentGd = gd.get(levelName);
+        Journal current = journal;
+        if (current != null) {
+            current.append(Journal.CLOSE_CHEST, levelName);
+        }
+        GameData currentGd = levelData(levelName);
         for (GameItem item : currentGd.tiles.values()) {
             if (item.fileName.equals("OpenEmptyChest.png") || item.fileName.equals("ChestWithKey.png")) {
                 logger.info("Chest found! Closing...");
                 item.isTouchable = false;
                 item.fileName = "ClosedChest.png";
+                markChanged(levelName, item);
+                refreshIndexes(levelName, item);
                 logger.info("Chest closed successfully.");
             }
         }
@@ -364,7 +651,7 @@ public class Model {
      */
     public GameItem getItemFromGD(String levelName, String itemName) {
         logger.info("Retrieving item '" + itemName + "' from level: " + levelName);
-        GameData currentGd = gd.get(levelName);
+        GameData currentGd = levelData(levelName);
         if (currentGd != null && currentGd.tiles.containsKey(itemName)) {
             logger.info("Item '" + itemName + "' retrieved successfully.");
             return currentGd.tiles.get(itemName);
@@ -383,12 +670,18 @@ public class Model {
      */
     public void openDoors(String levelName) {
         logger.info("Opening doors in level: " + levelName);
-        GameData currentGd = gd.get(levelName);
+        Journal current = journal;
+        if (current != null) {
+            current.append(Journal.OPEN_DOORS, levelName);
+        }
+        GameData currentGd = levelData(levelName);
         for (GameItem item : currentGd.tiles.values()) {
             if (item.fileName.equals("ClosedDoor.png")) {
                 logger.info("Door found! Opening...");
                 item.fileName = "OpenedDoor.png";
                 item.isCollision = false;
+                markChanged(levelName, item);
+                refreshIndexes(levelName, item);
                 logger.info("Door opened successfully.");
             }
         }
@@ -404,11 +697,16 @@ public class Model {
      */
     public void unsetTouching(String levelName, String itemName) {
         logger.info("Unsetting touching for item '" + itemName + "' in level: " + levelName);
-        GameData currentGd = gd.get(levelName);
+        Journal current = journal;
+        if (current != null) {
+            current.appendUnsetTouching(levelName, itemName);
+        }
+        GameData currentGd = levelData(levelName);
         for (GameItem item : currentGd.tiles.values()) {
             if (item.fileName.equals(itemName)) {
                 logger.info("Item '" + itemName + "' found! Unsetting touching...");
                 item.isTouchable = false;
+                refreshIndexes(levelName, item);
                 logger.info("Touchability unset for item '" + itemName + "'.");
             }
         }
@@ -416,24 +714,15 @@ public class Model {
 
     /**
      * Checks if the player character has touched the portal leading to the end of the game.
-     * It iterates over all game items in the current level and searches for the portal item.
-     * If the portal is found and the player character intersects with it, the game is marked as ended.
-     * The method stops searching after finding the portal to improve performance.
+     * Only the portals kept by the trigger registry of the current level are checked.
+     * If the player character intersects with a portal, the game is marked as ended.
      */
     public void checkIfPortalTouched() {
-        Rectangle playerRectangle = new Rectangle(player.getCharacterX(), player.getCharacterY(), player.getHEIGHT(), player.getWIDTH());
-        GameData currentGd = gd.get(level);
-        for (GameItem item : currentGd.tiles.values()) {
-            if (item.isTheEnd) {
-                for (Coord crd : item.coords) {
-                    Rectangle itemRectangle = new Rectangle(crd.x, crd.y, item.height, item.width);
-                    if (playerRectangle.getBoundsInParent().intersects(itemRectangle.getBoundsInParent())) {
-                        logger.info("Portal touched!");
-                        gameIsEnd = true;
-                        break;
-                    }
-                }
-            }
+        GameItem item = getTriggers().find(TriggerRegistry.END, player.getCharacterX(), player.getCharacterY(),
+                player.getHEIGHT(), player.getWIDTH(), 0, 0);
+        if (item != null) {
+            logger.info("Portal touched!");
+            gameIsEnd = true;
         }
     }
 
@@ -441,14 +730,20 @@ public class Model {
      * Checks the input from a button press and updates the sequence of button presses accordingly.
      * Adds the ID of the pressed button to the button sequence. If the button sequence exceeds a length of 4,
      * the oldest button press is removed to maintain a sequence length of 4.
+     * Whether the sequence matches the random sequence is remembered for the next update.
      *
      * @param button_id The ID of the button pressed.
      */
     public void checkButton(int button_id) {
+        Journal current = journal;
+        if (current != null) {
+            current.append(Journal.BUTTON, button_id);
+        }
         buttonSequence.add(button_id);
         if (buttonSequence.size() == 4) {
             buttonSequence.removeFirst();
         }
+        buttonSequenceMatches = buttonSequence.toString().equals(randomSequence);
     }
 
     /**
@@ -471,6 +766,10 @@ public class Model {
      */
     public void putInInventory(String levelName) {
         logger.info("Putting item into inventory from level: " + levelName);
+        Journal current = journal;
+        if (current != null) {
+            current.append(Journal.PUT_IN_INVENTORY, levelName);
+        }
         if (levelName.equals("secondLevel")) {
             logger.info("Adding item 1 to inventory.");
             player.getInventory().add(1);
@@ -483,19 +782,228 @@ public class Model {
         }
     }
 
+    /**
+     * Starts the timer to take the key from the chest of the third level, unless it already runs.
+     */
+    public void startChestTimer() {
+        if (chestTimerDeadline < 0) {
+            restoreChestTimer(CHEST_TIMER_SECONDS * 1000);
+        }
+    }
+
+    /**
+     * Stops the timer to take the key from the chest.
+     */
+    public void stopChestTimer() {
+        restoreChestTimer(-1);
+    }
+
+    /**
+     * Sets the time left to take the key from the chest, also when replaying the journal.
+     * The time which passed between the event and a crash is not counted.
+     *
+     * @param remainingMillis The time left in milliseconds, or -1 to stop the timer.
+     */
+    void restoreChestTimer(int remainingMillis) {
+        Journal current = journal;
+        if (current != null) {
+            current.append(Journal.CHEST_TIMER, remainingMillis);
+        }
+        chestTimerDeadline = remainingMillis < 0 ? -1 : System.nanoTime() + remainingMillis * 1_000_000L;
+    }
+
+    /**
+     * Get the time left to take the key from the chest.
+     *
+     * @return The time left in milliseconds, or -1 if the timer does not run.
+     */
+    public long getChestTimerRemainingMillis() {
+        if (chestTimerDeadline < 0) {
+            return -1;
+        }
+        return Math.max(chestTimerDeadline - System.nanoTime(), 0) / 1_000_000;
+    }
+
+    /**
+     * Captures the state to save: the player and the changes of the visited levels.
+     * This only compares the items of the levels, not their coordinates, so it is cheap enough for the game loop.
+     *
+     * @return The saved game, which is not changed by the game afterwards.
+     */
+    public SaveGame captureSave() {
+        SaveGame save = SaveGame.capture(level, player.getCharacterX(), player.getCharacterY(), gd, levelRepository);
+        save.inventory.addAll(player.getInventory());
+        save.closePanel = closePanel;
+        save.randomSequence = randomSequence;
+        save.buttonSequence.addAll(buttonSequence);
+        save.chestTimerMillis = getChestTimerRemainingMillis();
+        return save;
+    }
+
+    /**
+     * Saves the game on the calling thread.
+     *
+     * @throws IOException If the file cannot be written. The previous saved game is kept.
+     */
     public void saveGame() throws IOException {
         logger.info("Saving game...");
-        SavedGameDataPlayer savePlayer = new SavedGameDataPlayer();
-        savePlayer.setSavedLevel(level);
-        savePlayer.setSavedPlayerPositionX(player.getCharacterX());
-        savePlayer.setSavedPlayerPositionY(player.getCharacterY());
-
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.writeValue(new File("saveGamePlayer.json"), savePlayer);
-        logger.info("Player data saved successfully.");
-
-        ObjectMapper objectMapper1 = new ObjectMapper();
-        objectMapper1.writeValue(new File("saveGame.json"), gd);
-        logger.info("Game data saved successfully.");
+        saveService.save(captureSave());
+    }
+
+    /**
+     * Captures the state of the game and writes it in the background.
+     *
+     * @return A future which completes when the saved game is on the disk.
+     */
+    public CompletableFuture<Void> saveGameAsync() {
+        logger.info("Saving game in the background...");
+        return saveService.saveAsync(captureSave());
+    }
+
+    /**
+     * Starts recording the changes of the game in the journal next to the saved game, so the game can be
+     * recovered after a crash. The current state is written to the recovery file, as the base the journal
+     * is replayed onto. The saved game is not changed.
+     *
+     * @throws IOException If the recovery file or the journal cannot be written.
+     */
+    public void startJournal() throws IOException {
+        if (journal != null) {
+            return;
+        }
+        // The new generation matches neither the journal the model was recovered from nor its compacted successor,
+        // so that journal is kept until the new recovery file is written
+        long generation = (loadedSave != null ? loadedSave.journalGeneration : 0) + 2;
+        if (!recovered) {
+            Files.deleteIfExists(getJournalPath());
+        }
+        SaveGame save = captureSave();
+        save.journalGeneration = generation;
+        save.journalOffset = Journal.HEADER_SIZE;
+        recoveryService.save(save);
+        journal = Journal.create(getJournalPath(), generation);
+        logger.info("Journal started, generation " + generation);
+    }
+
+    /**
+     * Writes the pending events of the journal and closes it. The journal and the recovery file are kept,
+     * so the game can still be recovered, e.g. when it could not be saved.
+     */
+    public void closeJournal() {
+        Journal current = journal;
+        journal = null;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * Stops recording changes and deletes the journal and the recovery file, as the game ended normally
+     * and there is nothing to recover. They are deleted after a compaction in progress wrote them.
+     *
+     * @return A future which completes when the files are deleted.
+     */
+    public CompletableFuture<Void> stopJournal() {
+        if (journal == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        closeJournal();
+        return recoveryService.deleteAsync().thenRun(() -> {
+            try {
+                Files.deleteIfExists(getJournalPath());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((result, e) -> {
+            if (e != null) {
+                logger.warning("Error occurred while deleting the journal: " + e);
+            }
+        });
+    }
+
+    /**
+     * Compacts the journal: the current state is captured and written to the recovery file in the background,
+     * then the journal starts the next generation with the events appended in the meantime.
+     * A crash at any point leaves a recovery file and a journal which continues it.
+     *
+     * @return A future which completes when the journal is compacted, or exceptionally if it cannot be written.
+     */
+    public CompletableFuture<Void> compactJournal() {
+        return compactJournal(journal);
+    }
+
+    private CompletableFuture<Void> compactJournal(Journal current) {
+        if (current == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        SaveGame save = captureRecovery(current);
+        compacting = true;
+        return recoveryService.saveAsync(save).thenRun(() -> {
+            try {
+                current.compact(save.journalGeneration + 1, save.journalOffset);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            logger.info("Journal compacted, generation " + (save.journalGeneration + 1));
+        }).whenComplete((result, e) -> {
+            if (e != null) {
+                logger.severe("Error occurred while compacting the journal: " + e);
+            }
+            compacting = false;
+        });
+    }
+
+    /**
+     * Captures the state to write to the recovery file, which the events appended from now on continue.
+     */
+    private SaveGame captureRecovery(Journal current) {
+        SaveGame save = captureSave();
+        current.flush();
+        save.journalGeneration = current.getGeneration();
+        save.journalOffset = current.getSize();
+        return save;
+    }
+
+    /**
+     * Puts the player into the level at the given position, when replaying the journal.
+     */
+    void restoreLevel(String levelName, int x, int y) {
+        levelData(levelName);
+        level = levelName;
+        restorePosition(x, y);
+    }
+
+    /**
+     * Moves the player to the given position, when replaying the journal.
+     */
+    void restorePosition(int x, int y) {
+        player.setCharacterX(x);
+        player.setCharacterY(y);
+    }
+
+    /**
+     * Replays the journal onto the state loaded from the saved game, if the journal continues it.
+     */
+    private void replayJournal() {
+        if (loadedSave.journalGeneration == 0) {
+            return;
+        }
+        try {
+            Journal.replay(getJournalPath(), loadedSave.journalGeneration, loadedSave.journalOffset, this);
+        } catch (IOException e) {
+            logger.severe("Error occurred while replaying the journal: " + e);
+        }
+    }
+
+    private Path getJournalPath() {
+        return saveService.getPath().resolveSibling(JOURNAL_FILE);
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public SaveService getSaveService() {
+        return saveService;
     }
 }
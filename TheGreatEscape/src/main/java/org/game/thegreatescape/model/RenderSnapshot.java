@@ -0,0 +1,120 @@
+package org.game.thegreatescape.model;
+
+/**
+ * The RenderSnapshot class is an immutable picture of the game state after one simulation tick.
+ * The simulation thread publishes a new snapshot after every tick and the renderer only reads the latest one,
+ * so the renderer never sees the model in the middle of a change.
+ */
+public final class RenderSnapshot {
+    private final long tick; // Number of the tick which produced the snapshot
+    private final long time; // Time of the tick in nanoseconds
+    private final String level; // Name of the current level
+    private final int playerX; // Player position after the tick
+    private final int playerY;
+    private final int previousX; // Player position before the last step, for interpolation
+    private final int previousY;
+    private final long stepTime; // Time of the tick which made the last step, in nanoseconds
+    private final String playerImageName; // File name of the player's image
+    private final String touchableName; // File name of the touchable object near the player, or null
+    private final int[] touchableCoords; // Interleaved x and y of the touchable object near the player, or null
+    private final boolean closePanel; // The panel sequence was solved
+    private final boolean gameIsEnd; // The player reached the end of the game
+    private final boolean keyIsReady; // The player has both parts of the key
+    private final TileGrid tiles; // Spatial index over the tiles of the level, only queried by the renderer
+    private final String[] tileImages; // File name of every item of the level by item index, replaced when one changes
+
+    /**
+     * Constructor of a RenderSnapshot.
+     */
+    public RenderSnapshot(long tick, long time, String level, int playerX, int playerY, int previousX, int previousY,
+                          long stepTime, String playerImageName, String touchableName, int[] touchableCoords,
+                          boolean closePanel, boolean gameIsEnd, boolean keyIsReady,
+                          TileGrid tiles, String[] tileImages) {
+        this.tick = tick;
+        this.time = time;
+        this.level = level;
+        this.playerX = playerX;
+        this.playerY = playerY;
+        this.previousX = previousX;
+        this.previousY = previousY;
+        this.stepTime = stepTime;
+        this.playerImageName = playerImageName;
+        this.touchableName = touchableName;
+        this.touchableCoords = touchableCoords;
+        this.closePanel = closePanel;
+        this.gameIsEnd = gameIsEnd;
+        this.keyIsReady = keyIsReady;
+        this.tiles = tiles;
+        this.tileImages = tileImages;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public String getLevel() {
+        return level;
+    }
+
+    public int getPlayerX() {
+        return playerX;
+    }
+
+    public int getPlayerY() {
+        return playerY;
+    }
+
+    public int getPreviousX() {
+        return previousX;
+    }
+
+    public int getPreviousY() {
+        return previousY;
+    }
+
+    public long getStepTime() {
+        return stepTime;
+    }
+
+    public String getPlayerImageName() {
+        return playerImageName;
+    }
+
+    public String getTouchableName() {
+        return touchableName;
+    }
+
+    public int[] getTouchableCoords() {
+        return touchableCoords;
+    }
+
+    public boolean isClosePanel() {
+        return closePanel;
+    }
+
+    public boolean isGameIsEnd() {
+        return gameIsEnd;
+    }
+
+    public boolean isKeyIsReady() {
+        return keyIsReady;
+    }
+
+    public TileGrid getTiles() {
+        return tiles;
+    }
+
+    /**
+     * Get the file names of the items of the level, indexed like the items of {@link #getTiles()}.
+     * The array is never changed, a new one is published when an item changed.
+     *
+     * @return The file name of every item.
+     */
+    public String[] getTileImages() {
+        return tileImages;
+    }
+}
@@ -0,0 +1,398 @@
+package org.game.thegreatescape.model;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+/**
+ * The SaveGame class is a saved game in a single file which only stores what differs from the original levels:
+ * the player and its inventory, the state of the puzzles, the version of every visited level
+ * and the changed fields of its items.
+ * The size of a saved game and the time to write it do not depend on the size of the levels.
+ * <p>
+ * The file is a JSON object, which is read in one streaming pass:
+ * <pre>
+ * {"version": 3, "level": "secondLevel", "playerX": 216, "playerY": 266, "inventory": [1],
+ *  "closePanel": false, "randomSequence": "[2, 1, 3]", "buttonSequence": [2], "chestTimerMillis": 41000,
+ *  "journalGeneration": 3, "journalOffset": 14,
+ *  "levels": {"secondLevel": {"base": 123456, "items": {"DoorToThirdLevel": {"fileName": "OpenedDoor.png"}}}}}
+ * </pre>
+ * Only the fields fileName, isCollision and isTouchable can change during a game, so only they are stored.
+ * Version 2 saved games have no inventory and puzzle state. Saved games of version 1 consist of the complete
+ * levels in one file and the player in saveGamePlayer.json next to it, they are migrated when they are read.
+ */
+public class SaveGame {
+    static Logger logger = Logger.getLogger(SaveGame.class.getName());
+
+    public static final int VERSION = 3;
+    public static final String LEGACY_PLAYER_FILE = "saveGamePlayer.json"; // Player of a version 1 saved game
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    public int version = VERSION; // Version of the file the saved game was read from
+    public String level; // The level the player is in
+    public int playerX; // Position of the player
+    public int playerY;
+    public final Map<String, LevelDiff> levels = new LinkedHashMap<>(); // Every visited level by name
+    public final List<Integer> inventory = new ArrayList<>(); // Parts of the key the player collected
+    public boolean closePanel; // The panel sequence was solved
+    public String randomSequence; // The sequence which solves the panel, null if it was solved
+    public final List<Integer> buttonSequence = new ArrayList<>(); // The last buttons pressed at the panel
+    public long chestTimerMillis = -1; // Time left to take the key from the chest, -1 if the timer does not run
+    public Map<String, GameData> legacyLevels; // The complete levels of a version 1 saved game, null otherwise
+    public long journalGeneration; // Generation of the journal continuing this saved game, 0 if there is none
+    public long journalOffset; // Offset of the first journal event which is not contained in this saved game
+
+    /**
+     * The changes of one visited level.
+     */
+    public static class LevelDiff {
+        public long base; // Version of the original level the changes were made to
+        public final Map<String, ItemDiff> items = new LinkedHashMap<>(); // Changed items by name
+    }
+
+    /**
+     * The changed fields of one item, unchanged fields are null.
+     */
+    public static class ItemDiff {
+        public String fileName;
+        public Boolean isCollision;
+        public Boolean isTouchable;
+    }
+
+    /**
+     * Captures the state of a game by comparing the visited levels with the original levels of the repository.
+     * Only the items of the levels are compared, not their coordinates.
+     *
+     * @param level           The level the player is in.
+     * @param playerX         The x-coordinate of the player.
+     * @param playerY         The y-coordinate of the player.
+     * @param visited         The state of the visited levels by name.
+     * @param levelRepository The repository with the original levels.
+     * @return The saved game.
+     */
+    public static SaveGame capture(String level, int playerX, int playerY, Map<String, GameData> visited,
+                                   LevelRepository levelRepository) {
+        SaveGame save = new SaveGame();
+        save.level = level;
+        save.playerX = playerX;
+        save.playerY = playerY;
+        for (Map.Entry<String, GameData> entry : visited.entrySet()) {
+            GameData original = levelRepository.preload(entry.getKey());
+            if (original == null) {
+                continue;
+            }
+            LevelDiff levelDiff = new LevelDiff();
+            levelDiff.base = levelRepository.getVersion(entry.getKey());
+            for (Map.Entry<String, GameItem> tile : entry.getValue().tiles.entrySet()) {
+                GameItem item = tile.getValue();
+                GameItem originalItem = original.tiles.get(tile.getKey());
+                if (originalItem == null) {
+                    continue;
+                }
+                ItemDiff itemDiff = new ItemDiff();
+                boolean changed = false;
+                if (!Objects.equals(item.fileName, originalItem.fileName)) {
+                    itemDiff.fileName = item.fileName;
+                    changed = true;
+                }
+                if (item.isCollision != originalItem.isCollision) {
+                    itemDiff.isCollision = item.isCollision;
+                    changed = true;
+                }
+                if (item.isTouchable != originalItem.isTouchable) {
+                    itemDiff.isTouchable = item.isTouchable;
+                    changed = true;
+                }
+                if (changed) {
+                    levelDiff.items.put(tile.getKey(), itemDiff);
+                }
+            }
+            save.levels.put(entry.getKey(), levelDiff);
+        }
+        return save;
+    }
+
+    /**
+     * Restores the visited levels by loading the original levels and applying the changes to them.
+     * A level which was changed after the game was saved is still restored, with a warning.
+     *
+     * @param levelRepository The repository with the original levels.
+     * @return The state of the visited levels by name.
+     */
+    public Map<String, GameData> restore(LevelRepository levelRepository) {
+        if (legacyLevels != null) {
+            return legacyLevels;
+        }
+        Map<String, GameData> restored = new LinkedHashMap<>();
+        for (Map.Entry<String, LevelDiff> entry : levels.entrySet()) {
+            String levelName = entry.getKey();
+            GameData gameData = levelRepository.load(levelName);
+            if (gameData == null) {
+                logger.warning("Saved level cannot be loaded: " + levelName);
+                continue;
+            }
+            if (levelRepository.getVersion(levelName) != entry.getValue().base) {
+                logger.warning("Level was changed since the game was saved: " + levelName);
+            }
+            for (Map.Entry<String, ItemDiff> diff : entry.getValue().items.entrySet()) {
+                GameItem item = gameData.tiles.get(diff.getKey());
+                if (item == null) {
+                    logger.warning("Saved item does not exist anymore: " + levelName + " " + diff.getKey());
+                    continue;
+                }
+                ItemDiff itemDiff = diff.getValue();
+                if (itemDiff.fileName != null) {
+                    item.fileName = itemDiff.fileName;
+                }
+                if (itemDiff.isCollision != null) {
+                    item.isCollision = itemDiff.isCollision;
+                }
+                if (itemDiff.isTouchable != null) {
+                    item.isTouchable = itemDiff.isTouchable;
+                }
+            }
+            restored.put(levelName, gameData);
+        }
+        return restored;
+    }
+
+    /**
+     * Writes the saved game to the file.
+     *
+     * @param file The file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(File file) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            write(out);
+        }
+    }
+
+    /**
+     * Writes the saved game to the stream. The stream is not closed.
+     *
+     * @param out The stream.
+     * @throws IOException If the stream cannot be written.
+     */
+    public void write(OutputStream out) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.writeStartObject();
+            generator.writeNumberField("version", VERSION);
+            generator.writeStringField("level", level);
+            generator.writeNumberField("playerX", playerX);
+            generator.writeNumberField("playerY", playerY);
+            writeIntArray(generator, "inventory", inventory);
+            generator.writeBooleanField("closePanel", closePanel);
+            generator.writeStringField("randomSequence", randomSequence);
+            writeIntArray(generator, "buttonSequence", buttonSequence);
+            generator.writeNumberField("chestTimerMillis", chestTimerMillis);
+            if (journalGeneration != 0) {
+                generator.writeNumberField("journalGeneration", journalGeneration);
+                generator.writeNumberField("journalOffset", journalOffset);
+            }
+            generator.writeObjectFieldStart("levels");
+            for (Map.Entry<String, LevelDiff> entry : levels.entrySet()) {
+                generator.writeObjectFieldStart(entry.getKey());
+                generator.writeNumberField("base", entry.getValue().base);
+                generator.writeObjectFieldStart("items");
+                for (Map.Entry<String, ItemDiff> diff : entry.getValue().items.entrySet()) {
+                    ItemDiff itemDiff = diff.getValue();
+                    generator.writeObjectFieldStart(diff.getKey());
+                    if (itemDiff.fileName != null) {
+                        generator.writeStringField("fileName", itemDiff.fileName);
+                    }
+                    if (itemDiff.isCollision != null) {
+                        generator.writeBooleanField("isCollision", itemDiff.isCollision);
+                    }
+                    if (itemDiff.isTouchable != null) {
+                        generator.writeBooleanField("isTouchable", itemDiff.isTouchable);
+                    }
+                    generator.writeEndObject();
+                }
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeIntArray(JsonGenerator generator, String field, List<Integer> values) throws IOException {
+        generator.writeArrayFieldStart(field);
+        for (int value : values) {
+            generator.writeNumber(value);
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Checks if the file is a saved game in this format. Older saved games store the complete levels instead.
+     *
+     * @param file The file.
+     * @return true if the file starts with the version field.
+     * @throws IOException If the file cannot be read.
+     */
+    public static boolean isSaveGame(File file) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(file)) {
+            return parser.nextToken() == JsonToken.START_OBJECT && parser.nextToken() == JsonToken.FIELD_NAME
+                    && parser.currentName().equals("version");
+        }
+    }
+
+    /**
+     * Reads a saved game from the file in one streaming pass.
+     * A version 1 saved game is recognized by its missing version field, its complete levels are read in the
+     * same pass and its player is read from the player file next to it.
+     *
+     * @param file The file.
+     * @return The saved game.
+     * @throws IOException If the file cannot be read or is not a saved game of a supported version.
+     */
+    public static SaveGame read(File file) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(file)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            SaveGame save = new SaveGame();
+            if (parser.nextToken() == JsonToken.FIELD_NAME && !parser.currentName().equals("version")) {
+                return readLegacy(parser, file, save);
+            }
+            while (parser.currentToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "version" -> {
+                        save.version = parser.getValueAsInt();
+                        if (save.version != 2 && save.version != VERSION) {
+                            throw new IOException("Unsupported saved game version: " + save.version);
+                        }
+                    }
+                    case "level" -> save.level = parser.getValueAsString();
+                    case "playerX" -> save.playerX = parser.getValueAsInt();
+                    case "playerY" -> save.playerY = parser.getValueAsInt();
+                    case "inventory" -> readIntArray(parser, save.inventory);
+                    case "closePanel" -> save.closePanel = parser.getValueAsBoolean();
+                    case "randomSequence" -> save.randomSequence = parser.getValueAsString();
+                    case "buttonSequence" -> readIntArray(parser, save.buttonSequence);
+                    case "chestTimerMillis" -> save.chestTimerMillis = parser.getValueAsLong();
+                    case "journalGeneration" -> save.journalGeneration = parser.getValueAsLong();
+                    case "journalOffset" -> save.journalOffset = parser.getValueAsLong();
+                    case "levels" -> readLevels(parser, save);
+                    default -> {
+                        if (token.isStructStart()) {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+                parser.nextToken();
+            }
+            return save;
+        }
+    }
+
+    /**
+     * Reads the rest of a version 1 saved game, the parser is at the name of the first level.
+     */
+    private static SaveGame readLegacy(JsonParser parser, File file, SaveGame save) throws IOException {
+        logger.info("Migrating saved game of version 1: " + file);
+        save.version = 1;
+        save.legacyLevels = new LinkedHashMap<>();
+        while (parser.currentToken() == JsonToken.FIELD_NAME) {
+            String levelName = parser.currentName();
+            parser.nextToken();
+            save.legacyLevels.put(levelName, LevelParser.readGameData(parser));
+            parser.nextToken();
+        }
+        File playerFile = file.toPath().resolveSibling(LEGACY_PLAYER_FILE).toFile();
+        try (JsonParser playerParser = jsonFactory.createParser(playerFile)) {
+            expect(playerParser, playerParser.nextToken(), JsonToken.START_OBJECT);
+            while (playerParser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = playerParser.currentName();
+                JsonToken token = playerParser.nextToken();
+                switch (field) {
+                    case "savedLevel" -> save.level = playerParser.getValueAsString();
+                    case "savedPlayerPositionX" -> save.playerX = playerParser.getValueAsInt();
+                    case "savedPlayerPositionY" -> save.playerY = playerParser.getValueAsInt();
+                    default -> {
+                        if (token.isStructStart()) {
+                            playerParser.skipChildren();
+                        }
+                    }
+                }
+            }
+        }
+        return save;
+    }
+
+    private static void readIntArray(JsonParser parser, List<Integer> values) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            values.add(parser.getValueAsInt());
+        }
+    }
+
+    private static void readLevels(JsonParser parser, SaveGame save) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String levelName = parser.currentName();
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            LevelDiff levelDiff = new LevelDiff();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if (field.equals("base")) {
+                    levelDiff.base = parser.getValueAsLong();
+                } else if (field.equals("items")) {
+                    readItems(parser, levelDiff);
+                } else if (token.isStructStart()) {
+                    parser.skipChildren();
+                }
+            }
+            save.levels.put(levelName, levelDiff);
+        }
+    }
+
+    private static void readItems(JsonParser parser, LevelDiff levelDiff) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String itemName = parser.currentName();
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            ItemDiff itemDiff = new ItemDiff();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "fileName" -> itemDiff.fileName = parser.getValueAsString();
+                    case "isCollision" -> itemDiff.isCollision = parser.getValueAsBoolean();
+                    case "isTouchable" -> itemDiff.isTouchable = parser.getValueAsBoolean();
+                    default -> {
+                        if (token.isStructStart()) {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            }
+            levelDiff.items.put(itemName, itemDiff);
+        }
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package org.game.thegreatescape.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * The SaveService class writes saved games on a background thread, so saving never blocks the game or the window.
+ * <p>
+ * A saved game is first written to a temporary file next to the target, forced to the disk and then renamed
+ * over the target in one atomic step. A crash while saving leaves the previous saved game untouched.
+ * Where the file system allows it, the directory is forced to the disk after the rename, so the rename itself
+ * survives a power loss. Elsewhere, e.g. on Windows, a power loss right after saving may restore the previous saved game.
+ */
+public class SaveService {
+    static Logger logger = Logger.getLogger(SaveService.class.getName());
+
+    // One background thread shared by all games, saves are written in the order they were requested
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "save");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path path;
+
+    private final AtomicLong saves = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong(); // From the request to the renamed file
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private final AtomicLong lastLatencyNanos = new AtomicLong();
+
+    /**
+     * Constructor of a SaveService writing saved games to the given file.
+     *
+     * @param path The file of the saved game.
+     */
+    public SaveService(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Writes the saved game in the background. The saved game must not be changed afterwards.
+     *
+     * @param save The saved game.
+     * @return A future which completes when the file is on the disk, or completes exceptionally if it cannot be written.
+     */
+    public CompletableFuture<Void> saveAsync(SaveGame save) {
+        long requested = System.nanoTime();
+        return CompletableFuture.runAsync(() -> {
+            try {
+                write(save, requested);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Deletes the file in the background, after the saves requested before were written.
+     *
+     * @return A future which completes when the file is deleted, or completes exceptionally if it cannot be deleted.
+     */
+    public CompletableFuture<Void> deleteAsync() {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Writes the saved game on the calling thread.
+     *
+     * @param save The saved game.
+     * @throws IOException If the file cannot be written. The previous saved game is kept.
+     */
+    public void save(SaveGame save) throws IOException {
+        write(save, System.nanoTime());
+    }
+
+    private void write(SaveGame save, long requested) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                OutputStream out = Channels.newOutputStream(channel);
+                save.write(out);
+                out.flush();
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                logger.warning("Atomic rename is not supported, replacing the saved game non-atomically.");
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            forceDirectory(directory);
+        } catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            Files.deleteIfExists(temp);
+            logger.severe("Error occurred while saving game: " + e);
+            throw e;
+        }
+        long latency = System.nanoTime() - requested;
+        saves.incrementAndGet();
+        totalLatencyNanos.addAndGet(latency);
+        maxLatencyNanos.accumulateAndGet(latency, Math::max);
+        lastLatencyNanos.set(latency);
+        logger.info("Game saved to " + path + " in " + latency / 1_000 + " us.");
+    }
+
+    /**
+     * Forces the entry of the renamed file to the disk. Directories cannot be opened on every platform,
+     * in which case the rename is left to the file system.
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.fine("The directory of the saved game cannot be forced to the disk: " + e);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getSaves() {
+        return saves.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getLastLatencyNanos() {
+        return lastLatencyNanos.get();
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos.get();
+    }
+
+    /**
+     * Get the average time from requesting a save until the file was on the disk.
+     *
+     * @return The average latency in nanoseconds, or 0 if nothing was saved yet.
+     */
+    public long getAverageLatencyNanos() {
+        long count = saves.get();
+        return count == 0 ? 0 : totalLatencyNanos.get() / count;
+    }
+}
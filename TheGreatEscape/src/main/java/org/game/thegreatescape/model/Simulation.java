@@ -0,0 +1,241 @@
+package org.game.thegreatescape.model;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * The Simulation class runs the model on its own thread with a fixed tick rate.
+ * Input and commands from other threads are passed in through a lock-free queue and executed
+ * before the next tick. After every tick an immutable {@link RenderSnapshot} is published,
+ * which the renderer reads without locking.
+ */
+public class Simulation {
+    Logger logger = Logger.getLogger(Simulation.class.getName());
+
+    private static final int MOVE_INTERVAL_TICKS = 4; // Ticks between two steps of the player, 30 steps per second
+    public static final long STEP_NANOS = MOVE_INTERVAL_TICKS * GameClock.TICK_NANOS; // Time between two steps of the player
+
+    private final Model model;
+    private final GameClock clock = new GameClock();
+    private final InputState input = new InputState();
+    private final ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<RenderSnapshot> snapshot = new AtomicReference<>();
+
+    private volatile boolean running;
+    private long tick;
+    private int moveCooldown = 0;
+
+    // Player position before the last step and the time of the tick which made it, the renderer interpolates between them
+    private int stepFromX;
+    private int stepFromY;
+    private long stepTime;
+
+    // Tile grids of the visited levels for the renderer and the file names of their items as last published
+    private final HashMap<String, TileGrid> renderTiles = new HashMap<>();
+    private final HashMap<String, String[]> tileImages = new HashMap<>();
+
+    /**
+     * Constructor of a Simulation for the given model.
+     * The first snapshot is published immediately, so there is always something to render.
+     *
+     * @param model The model to simulate. It must only be used through this simulation afterwards.
+     */
+    public Simulation(Model model) {
+        this.model = model;
+        Character player = model.getPlayer();
+        stepFromX = player.getCharacterX();
+        stepFromY = player.getCharacterY();
+        stepTime = System.nanoTime();
+        publish(stepTime);
+    }
+
+    /**
+     * Starts the simulation thread.
+     */
+    public void start() {
+        running = true;
+        Thread thread = new Thread(this::run, "simulation");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Simulation started.");
+    }
+
+    /**
+     * Stops the simulation thread after the commands already submitted were executed.
+     */
+    public void stop() {
+        submit(() -> running = false);
+        logger.info("Simulation stop requested.");
+    }
+
+    /**
+     * Queues a command which is executed on the simulation thread before the next tick.
+     * This is the only way other threads may change the model.
+     *
+     * @param command The command to execute.
+     */
+    public void submit(Runnable command) {
+        commands.add(command);
+    }
+
+    /**
+     * Queues a change of a held movement key.
+     *
+     * @param direction The direction of the key.
+     * @param pressed   true if the key was pressed, false if it was released.
+     */
+    public void setDirection(Direction direction, boolean pressed) {
+        submit(() -> {
+            input.setDirection(direction, pressed);
+            if (!pressed) {
+                switch (direction) {
+                    case UP -> model.getPlayer().stayUp();
+                    case DOWN -> model.getPlayer().stayDown();
+                    case LEFT -> model.getPlayer().stayLeft();
+                    case RIGHT -> model.getPlayer().stayRight();
+                    default -> {
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Releases all held movement keys.
+     */
+    public void releaseAll() {
+        submit(input::clear);
+    }
+
+    /**
+     * Get the latest published snapshot.
+     *
+     * @return The snapshot of the last tick.
+     */
+    public RenderSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Get the clock of the simulation, used to measure ticks per second.
+     *
+     * @return The game clock.
+     */
+    public GameClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Executes the queued commands and runs one fixed step of the simulation.
+     * Held movement keys are sampled and the player makes one step every few ticks,
+     * so the speed does not depend on the frame rate or on the key repeat rate.
+     * Called by the simulation thread, or directly when the simulation is driven without a thread.
+     */
+    public void tick() {
+        Runnable command;
+        while ((command = commands.poll()) != null) {
+            command.run();
+        }
+
+        Character player = model.getPlayer();
+        int previousX = player.getCharacterX();
+        int previousY = player.getCharacterY();
+        String previousLevel = model.getLevel();
+
+        if (moveCooldown > 0) {
+            moveCooldown--;
+        } else if (input.isMoving()) {
+            if (input.isRight()) {
+                model.goRight();
+            }
+            if (input.isLeft()) {
+                model.goLeft();
+            }
+            if (input.isUp()) {
+                model.goUp();
+            }
+            if (input.isDown()) {
+                model.goDown();
+            }
+            moveCooldown = MOVE_INTERVAL_TICKS - 1;
+        }
+        model.update();
+
+        tick++;
+        long time = System.nanoTime();
+        if (!previousLevel.equals(model.getLevel())) {
+            // no interpolation across a level change
+            stepFromX = player.getCharacterX();
+            stepFromY = player.getCharacterY();
+            stepTime = time;
+        } else if (player.getCharacterX() != previousX || player.getCharacterY() != previousY) {
+            // the player is drawn moving from the old position over the whole step interval
+            stepFromX = previousX;
+            stepFromY = previousY;
+            stepTime = time;
+        }
+        publish(time);
+    }
+
+    /**
+     * Loop of the simulation thread. Runs as many ticks as the clock asks for and sleeps until the next one.
+     */
+    private void run() {
+        while (running) {
+            int ticks = clock.advance(System.nanoTime());
+            for (int i = 0; i < ticks && running; i++) {
+                tick();
+            }
+            if (running) {
+                LockSupport.parkNanos(Math.max(GameClock.TICK_NANOS - (long) (clock.getAlpha() * GameClock.TICK_NANOS), 0));
+            }
+        }
+        logger.info("Simulation stopped.");
+    }
+
+    /**
+     * Publishes a snapshot of the current state of the model.
+     */
+    private void publish(long time) {
+        Character player = model.getPlayer();
+        String level = model.getLevel();
+        snapshot.set(new RenderSnapshot(tick, time, level,
+                player.getCharacterX(), player.getCharacterY(), stepFromX, stepFromY, stepTime,
+                player.getImageName(), model.ifNearToTouchableObject(), model.ifNearToTouchableObjectForText(),
+                model.isClosePanel(), model.isGameIsEnd(), model.checkIfKeyIsReady(),
+                renderTiles(level), tileImages(level)));
+    }
+
+    /**
+     * Get the tile grid of the level for the renderer, which shares the index of the model's grid.
+     */
+    private TileGrid renderTiles(String level) {
+        TileGrid tiles = renderTiles.get(level);
+        if (tiles == null) {
+            tiles = new TileGrid(model.getTileGrid(level));
+            renderTiles.put(level, tiles);
+        }
+        return tiles;
+    }
+
+    /**
+     * Get the file names of the items of the level. The published array is kept until an item of the level changed,
+     * then a new array is published, so the renderer only compares references to find out that it has to repaint.
+     */
+    private String[] tileImages(String level) {
+        String[] images = tileImages.get(level);
+        boolean changed = !model.pollChangedItems(level).isEmpty();
+        if (images == null || changed) {
+            TileGrid grid = model.getTileGrid(level);
+            images = new String[grid.getItemCount()];
+            for (int i = 0; i < images.length; i++) {
+                images[i] = grid.getItemAt(i).fileName;
+            }
+            tileImages.put(level, images);
+        }
+        return images;
+    }
+}
@@ -0,0 +1,320 @@
+package org.game.thegreatescape.model;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * The TileGrid class is a uniform-grid spatial index over the coordinates of all items of one level.
+ * Every coordinate of every item is an entry. Entries are numbered in the iteration order of the level tiles,
+ * so sorting query results by entry number keeps the original drawing order.
+ * Only the flags of the items change after construction, so a copy made with {@link #TileGrid(TileGrid)}
+ * can be queried by another thread, e.g. the renderer, as long as it reads nothing but the geometry.
+ */
+public class TileGrid {
+    public static final int CELL_SIZE = 64; // Size of one grid cell in pixels
+
+    private final GameItem[] items; // Items of the level in tiles iteration order
+    private final int[] entryItem; // Index of the item for every entry
+    private final int[] entryX; // X-coordinate of every entry
+    private final int[] entryY; // Y-coordinate of every entry
+    private final int[] entryWidth; // Width of every entry
+    private final int[] entryHeight; // Height of every entry
+    private final int[] itemStart; // First entry of every item, itemStart[items.length] is the number of entries
+    private final boolean[] collision; // Collision flag of every item, updated by refresh
+
+    private final int originX; // First cell column
+    private final int originY; // First cell row
+    private final int cols; // Number of cell columns
+    private final int rows; // Number of cell rows
+    private final int[] cellStart; // Start of every cell in cellEntries, cellStart[cols * rows] is the end
+    private final int[] cellEntries; // Entries of all cells, cell after cell
+
+    private final int width; // Right edge of the level in pixels
+    private final int height; // Bottom edge of the level in pixels
+
+    // Query state, reused between queries
+    private final int[] stamp;
+    private int stampValue;
+    private int[] results = new int[64];
+    private int resultCount;
+
+    /**
+     * Constructor of a TileGrid which indexes all items of the given level.
+     *
+     * @param gameData The game data of the level.
+     */
+    public TileGrid(GameData gameData) {
+        items = gameData.tiles.values().toArray(new GameItem[0]);
+        collision = new boolean[items.length];
+        for (int i = 0; i < items.length; i++) {
+            collision[i] = items[i].isCollision;
+        }
+
+        int entries = 0;
+        for (GameItem item : items) {
+            entries += item.coordCount();
+        }
+        entryItem = new int[entries];
+        entryX = new int[entries];
+        entryY = new int[entries];
+        entryWidth = new int[entries];
+        entryHeight = new int[entries];
+        itemStart = new int[items.length + 1];
+
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = 0, maxY = 0;
+        int e = 0;
+        for (int i = 0; i < items.length; i++) {
+            GameItem item = items[i];
+            itemStart[i] = e;
+            for (int c = 0; c < item.coordCount(); c++) {
+                int x = item.x(c);
+                int y = item.y(c);
+                entryItem[e] = i;
+                entryX[e] = x;
+                entryY[e] = y;
+                entryWidth[e] = item.width;
+                entryHeight[e] = item.height;
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x + item.width);
+                maxY = Math.max(maxY, y + item.height);
+                e++;
+            }
+        }
+        itemStart[items.length] = entries;
+        if (entries == 0) {
+            minX = minY = 0;
+        }
+        width = maxX;
+        height = maxY;
+
+        originX = Math.floorDiv(minX, CELL_SIZE);
+        originY = Math.floorDiv(minY, CELL_SIZE);
+        cols = Math.floorDiv(maxX, CELL_SIZE) - originX + 1;
+        rows = Math.floorDiv(maxY, CELL_SIZE) - originY + 1;
+
+        // Count entries per cell, then fill the cells
+        cellStart = new int[cols * rows + 1];
+        for (e = 0; e < entries; e++) {
+            forEachCell(e, cell -> cellStart[cell + 1]++);
+        }
+        for (int c = 0; c < cols * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        cellEntries = new int[cellStart[cols * rows]];
+        int[] fill = Arrays.copyOf(cellStart, cols * rows);
+        for (e = 0; e < entries; e++) {
+            final int entry = e;
+            forEachCell(e, cell -> cellEntries[fill[cell]++] = entry);
+        }
+
+        stamp = new int[entries];
+    }
+
+    /**
+     * Constructor of a TileGrid which shares the index of the given grid and has its own query state.
+     *
+     * @param shared The grid whose index is shared.
+     */
+    public TileGrid(TileGrid shared) {
+        items = shared.items;
+        entryItem = shared.entryItem;
+        entryX = shared.entryX;
+        entryY = shared.entryY;
+        entryWidth = shared.entryWidth;
+        entryHeight = shared.entryHeight;
+        itemStart = shared.itemStart;
+        collision = shared.collision;
+        originX = shared.originX;
+        originY = shared.originY;
+        cols = shared.cols;
+        rows = shared.rows;
+        cellStart = shared.cellStart;
+        cellEntries = shared.cellEntries;
+        width = shared.width;
+        height = shared.height;
+        stamp = new int[entryItem.length];
+    }
+
+    /**
+     * Collects all entries whose rectangle intersects the given rectangle.
+     * Touching edges count as an intersection. The results are sorted by entry number
+     * and can be read with {@link #getResults()} until the next query.
+     *
+     * @param x      The x-coordinate of the rectangle.
+     * @param y      The y-coordinate of the rectangle.
+     * @param width  The width of the rectangle.
+     * @param height The height of the rectangle.
+     * @return The number of entries found.
+     */
+    public int query(int x, int y, int width, int height) {
+        nextStamp();
+        resultCount = 0;
+        int firstCol = Math.max(Math.floorDiv(x, CELL_SIZE) - 1 - originX, 0);
+        int firstRow = Math.max(Math.floorDiv(y, CELL_SIZE) - 1 - originY, 0);
+        int lastCol = Math.min(Math.floorDiv(x + width, CELL_SIZE) - originX, cols - 1);
+        int lastRow = Math.min(Math.floorDiv(y + height, CELL_SIZE) - originY, rows - 1);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                int cell = row * cols + col;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int e = cellEntries[k];
+                    if (stamp[e] != stampValue && intersects(e, x, y, width, height)) {
+                        stamp[e] = stampValue;
+                        if (resultCount == results.length) {
+                            results = Arrays.copyOf(results, resultCount * 2);
+                        }
+                        results[resultCount++] = e;
+                    }
+                }
+            }
+        }
+        Arrays.sort(results, 0, resultCount);
+        return resultCount;
+    }
+
+    /**
+     * Checks if any colliding entry intersects the given rectangle, touching edges included.
+     * Only the cells overlapping the rectangle are visited and nothing is allocated.
+     *
+     * @param x      The x-coordinate of the rectangle.
+     * @param y      The y-coordinate of the rectangle.
+     * @param width  The width of the rectangle.
+     * @param height The height of the rectangle.
+     * @return true if the rectangle collides with an item, false otherwise.
+     */
+    public boolean isCollision(int x, int y, int width, int height) {
+        int firstCol = Math.max(Math.floorDiv(x, CELL_SIZE) - 1 - originX, 0);
+        int firstRow = Math.max(Math.floorDiv(y, CELL_SIZE) - 1 - originY, 0);
+        int lastCol = Math.min(Math.floorDiv(x + width, CELL_SIZE) - originX, cols - 1);
+        int lastRow = Math.min(Math.floorDiv(y + height, CELL_SIZE) - originY, rows - 1);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                int cell = row * cols + col;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int e = cellEntries[k];
+                    if (collision[entryItem[e]] && intersects(e, x, y, width, height)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Updates the flags kept by the grid after the item changed, e.g. when a door was opened.
+     *
+     * @param item The changed item.
+     */
+    public void refresh(GameItem item) {
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] == item) {
+                collision[i] = item.isCollision;
+            }
+        }
+    }
+
+    /**
+     * Get the entries found by the last query. Only the first {@code query(...)} entries are valid.
+     *
+     * @return The array of entry numbers.
+     */
+    public int[] getResults() {
+        return results;
+    }
+
+    public GameItem getItem(int entry) {
+        return items[entryItem[entry]];
+    }
+
+    public int getX(int entry) {
+        return entryX[entry];
+    }
+
+    public int getY(int entry) {
+        return entryY[entry];
+    }
+
+    public int getEntryWidth(int entry) {
+        return entryWidth[entry];
+    }
+
+    public int getEntryHeight(int entry) {
+        return entryHeight[entry];
+    }
+
+    /**
+     * Get the index of the item of the entry, in the iteration order of the level tiles.
+     *
+     * @param entry The entry number.
+     * @return The index of the item.
+     */
+    public int getItemIndex(int entry) {
+        return entryItem[entry];
+    }
+
+    /**
+     * Get the first entry of the item. The entries of the item end at the first entry of the next item.
+     *
+     * @param index The index of the item, up to the number of items.
+     * @return The first entry of the item, or the number of entries for the index after the last item.
+     */
+    public int getFirstEntry(int index) {
+        return itemStart[index];
+    }
+
+    public GameItem getItemAt(int index) {
+        return items[index];
+    }
+
+    public int getItemCount() {
+        return items.length;
+    }
+
+    public int getEntryCount() {
+        return entryItem.length;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Checks if the entry intersects the given rectangle, touching edges included.
+     */
+    private boolean intersects(int e, int x, int y, int width, int height) {
+        return Aabb.intersects(entryX[e], entryY[e], entryWidth[e], entryHeight[e], x, y, width, height);
+    }
+
+    /**
+     * Calls the action for every cell containing the top left corner of the entry or covered by it.
+     */
+    private void forEachCell(int e, IntConsumer action) {
+        int firstCol = Math.floorDiv(entryX[e], CELL_SIZE) - originX;
+        int firstRow = Math.floorDiv(entryY[e], CELL_SIZE) - originY;
+        int lastCol = Math.floorDiv(entryX[e] + Math.max(entryWidth[e] - 1, 0), CELL_SIZE) - originX;
+        int lastRow = Math.floorDiv(entryY[e] + Math.max(entryHeight[e] - 1, 0), CELL_SIZE) - originY;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                action.accept(row * cols + col);
+            }
+        }
+    }
+
+    /**
+     * Starts a new query by changing the stamp used to skip entries stored in several cells.
+     */
+    private void nextStamp() {
+        stampValue++;
+        if (stampValue == 0) {
+            Arrays.fill(stamp, 0);
+            stampValue = 1;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package org.game.thegreatescape.model;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The TileMap class is a dense representation of a level: one {@code short[]} grid per layer,
+ * in which every cell holds an index into a palette of tile types, or {@link #EMPTY}.
+ * The tile at a cell is found in constant time and the memory depends on the area of the level,
+ * not on the number of tiles.
+ * <p>
+ * Tiles of the level data which are not aligned to the cells, have another size than a cell, or would
+ * share a cell with another tile of the same layer are kept in a list of free tiles, so converting
+ * a level to a tile map and back does not lose anything. Only the order of the coordinates within
+ * one item may change, the order of the items is kept. Every cell also lists the free tiles overlapping it,
+ * so lookups by cell see them in constant time too.
+ */
+public class TileMap {
+    public static final int CELL_SIZE = TileGrid.CELL_SIZE;
+
+    public static final int FLOOR = 0; // Tiles without collision and without triggers
+    public static final int WALLS = 1; // Tiles with collision and without triggers
+    public static final int OBJECTS = 2; // Doors, touchable objects and the end of the game
+    public static final int LAYERS = 3;
+
+    public static final short EMPTY = 0; // Palette index of an empty cell
+
+    private final int originX; // Pixel coordinates of the top left cell
+    private final int originY;
+    private final int columns;
+    private final int rows;
+    private final short[][] layers; // Palette index of every cell of every layer, row by row
+
+    private final String[] paletteNames; // Name of every tile type, index 0 is unused
+    private final GameItem[] palette; // Tile types without coordinates, index 0 is unused
+
+    private final short[] freeTypes; // Palette index, x and y of every free tile
+    private final int[] freeX;
+    private final int[] freeY;
+    private final int[] freeCellStart; // Start of every cell in freeCellEntries, freeCellStart[columns * rows] is the end
+    private final int[] freeCellEntries; // Free tiles overlapping every cell, cell after cell
+
+    private final int startX;
+    private final int startY;
+    private final int startAnimationPhase;
+
+    private TileMap(int originX, int originY, int columns, int rows, short[][] layers, String[] paletteNames,
+                    GameItem[] palette, short[] freeTypes, int[] freeX, int[] freeY, int[] freeCellStart,
+                    int[] freeCellEntries, GameData gameData) {
+        this.originX = originX;
+        this.originY = originY;
+        this.columns = columns;
+        this.rows = rows;
+        this.layers = layers;
+        this.paletteNames = paletteNames;
+        this.palette = palette;
+        this.freeTypes = freeTypes;
+        this.freeX = freeX;
+        this.freeY = freeY;
+        this.freeCellStart = freeCellStart;
+        this.freeCellEntries = freeCellEntries;
+        this.startX = gameData.START_POSITION_PLAYERX;
+        this.startY = gameData.START_POSITION_PLAYERY;
+        this.startAnimationPhase = gameData.START_ANIMATION_PHASE;
+    }
+
+    /**
+     * Builds the tile map of the level.
+     *
+     * @param gameData The level.
+     * @return The tile map.
+     * @throws IllegalArgumentException If the level has more tile types than a short can index.
+     */
+    public static TileMap fromGameData(GameData gameData) {
+        int typeCount = gameData.tiles.size();
+        if (typeCount >= Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many tile types: " + typeCount);
+        }
+        String[] names = new String[typeCount + 1];
+        GameItem[] palette = new GameItem[typeCount + 1];
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        int coordCount = 0;
+        int type = 1;
+        for (Map.Entry<String, GameItem> entry : gameData.tiles.entrySet()) {
+            GameItem item = entry.getValue();
+            names[type] = entry.getKey();
+            palette[type] = item.copy();
+            palette[type].setPackedCoords(item.packedCoords() != null ? new int[0] : null);
+            for (int c = 0; c < item.coordCount(); c++) {
+                minX = Math.min(minX, item.x(c));
+                minY = Math.min(minY, item.y(c));
+                maxX = Math.max(maxX, item.x(c) + Math.max(item.width, 1) - 1);
+                maxY = Math.max(maxY, item.y(c) + Math.max(item.height, 1) - 1);
+            }
+            coordCount += item.coordCount();
+            type++;
+        }
+        if (coordCount == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+        int originX = Math.floorDiv(minX, CELL_SIZE) * CELL_SIZE;
+        int originY = Math.floorDiv(minY, CELL_SIZE) * CELL_SIZE;
+        int columns = (maxX - originX) / CELL_SIZE + 1;
+        int rows = (maxY - originY) / CELL_SIZE + 1;
+
+        short[] freeTypes = new short[coordCount];
+        int[] freeX = new int[coordCount];
+        int[] freeY = new int[coordCount];
+        int freeCount = 0;
+        short[][] layers = new short[LAYERS][columns * rows];
+        type = 1;
+        for (GameItem item : gameData.tiles.values()) {
+            short[] layer = layers[layerOf(item)];
+            boolean cellSized = item.width == CELL_SIZE && item.height == CELL_SIZE;
+            for (int c = 0; c < item.coordCount(); c++) {
+                int x = item.x(c) - originX;
+                int y = item.y(c) - originY;
+                int cell = (y / CELL_SIZE) * columns + x / CELL_SIZE;
+                if (cellSized && x % CELL_SIZE == 0 && y % CELL_SIZE == 0 && layer[cell] == EMPTY) {
+                    layer[cell] = (short) type;
+                } else {
+                    freeTypes[freeCount] = (short) type;
+                    freeX[freeCount] = item.x(c);
+                    freeY[freeCount] = item.y(c);
+                    freeCount++;
+                }
+            }
+            type++;
+        }
+
+        // Count the free tiles per cell, then fill the cells
+        int[] freeCellStart = new int[columns * rows + 1];
+        for (int i = 0; i < freeCount; i++) {
+            GameItem item = palette[freeTypes[i]];
+            for (int row = firstCell(freeY[i], originY); row <= lastCell(freeY[i], item.height, originY); row++) {
+                for (int col = firstCell(freeX[i], originX); col <= lastCell(freeX[i], item.width, originX); col++) {
+                    freeCellStart[row * columns + col + 1]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < columns * rows; cell++) {
+            freeCellStart[cell + 1] += freeCellStart[cell];
+        }
+        int[] freeCellEntries = new int[freeCellStart[columns * rows]];
+        int[] fill = Arrays.copyOf(freeCellStart, columns * rows);
+        for (int i = 0; i < freeCount; i++) {
+            GameItem item = palette[freeTypes[i]];
+            for (int row = firstCell(freeY[i], originY); row <= lastCell(freeY[i], item.height, originY); row++) {
+                for (int col = firstCell(freeX[i], originX); col <= lastCell(freeX[i], item.width, originX); col++) {
+                    freeCellEntries[fill[row * columns + col]++] = i;
+                }
+            }
+        }
+
+        return new TileMap(originX, originY, columns, rows, layers, names, palette, Arrays.copyOf(freeTypes, freeCount),
+                Arrays.copyOf(freeX, freeCount), Arrays.copyOf(freeY, freeCount), freeCellStart, freeCellEntries, gameData);
+    }
+
+    private static int firstCell(int coordinate, int origin) {
+        return (coordinate - origin) / CELL_SIZE;
+    }
+
+    private static int lastCell(int coordinate, int size, int origin) {
+        return (coordinate + Math.max(size, 1) - 1 - origin) / CELL_SIZE;
+    }
+
+    /**
+     * Converts the tile map back to level data. Every tile type becomes one item again, in palette order.
+     *
+     * @return The level data.
+     */
+    public GameData toGameData() {
+        int[] counts = new int[palette.length];
+        for (short[] layer : layers) {
+            for (short type : layer) {
+                counts[type]++;
+            }
+        }
+        for (short type : freeTypes) {
+            counts[type]++;
+        }
+        int[][] coords = new int[palette.length][];
+        int[] filled = new int[palette.length];
+        for (int type = 1; type < palette.length; type++) {
+            coords[type] = new int[2 * counts[type]];
+        }
+        for (short[] layer : layers) {
+            for (int cell = 0; cell < layer.length; cell++) {
+                int type = layer[cell];
+                if (type != EMPTY) {
+                    coords[type][filled[type]++] = originX + (cell % columns) * CELL_SIZE;
+                    coords[type][filled[type]++] = originY + (cell / columns) * CELL_SIZE;
+                }
+            }
+        }
+        for (int i = 0; i < freeTypes.length; i++) {
+            int type = freeTypes[i];
+            coords[type][filled[type]++] = freeX[i];
+            coords[type][filled[type]++] = freeY[i];
+        }
+
+        GameData gameData = new GameData();
+        gameData.tiles = new LinkedHashMap<>();
+        for (int type = 1; type < palette.length; type++) {
+            GameItem item = palette[type].copy();
+            item.setPackedCoords(palette[type].packedCoords() != null ? coords[type] : null);
+            gameData.tiles.put(paletteNames[type], item);
+        }
+        gameData.START_POSITION_PLAYERX = startX;
+        gameData.START_POSITION_PLAYERY = startY;
+        gameData.START_ANIMATION_PHASE = startAnimationPhase;
+        return gameData;
+    }
+
+    /**
+     * Get the layer in which the tiles of the item are stored.
+     *
+     * @param item The item.
+     * @return FLOOR, WALLS or OBJECTS.
+     */
+    public static int layerOf(GameItem item) {
+        if (item.isDoorToTheNextLevel || item.isTouchable || item.isTheEnd) {
+            return OBJECTS;
+        }
+        return item.isCollision ? WALLS : FLOOR;
+    }
+
+    /**
+     * Get the palette index of the cell in the given layer.
+     *
+     * @param layer  The layer, FLOOR, WALLS or OBJECTS.
+     * @param column The column of the cell.
+     * @param row    The row of the cell.
+     * @return The palette index, or EMPTY if the cell is empty or outside the map.
+     */
+    public short get(int layer, int column, int row) {
+        if (column < 0 || row < 0 || column >= columns || row >= rows) {
+            return EMPTY;
+        }
+        return layers[layer][row * columns + column];
+    }
+
+    /**
+     * Get the tile type of the cell in the given layer.
+     *
+     * @param layer  The layer, FLOOR, WALLS or OBJECTS.
+     * @param column The column of the cell.
+     * @param row    The row of the cell.
+     * @return The tile type without coordinates, which must not be changed, or null if the cell is empty.
+     */
+    public GameItem getTile(int layer, int column, int row) {
+        return palette[get(layer, column, row)];
+    }
+
+    /**
+     * Get the tile type of the cell containing the given pixel in the given layer.
+     *
+     * @param layer The layer, FLOOR, WALLS or OBJECTS.
+     * @param x     The x-coordinate of the pixel.
+     * @param y     The y-coordinate of the pixel.
+     * @return The tile type, or null if the cell is empty.
+     */
+    public GameItem tileAt(int layer, int x, int y) {
+        return getTile(layer, columnOf(x), rowOf(y));
+    }
+
+    /**
+     * Checks if any tile overlapping the cell blocks the player, including free tiles.
+     *
+     * @param column The column of the cell.
+     * @param row    The row of the cell.
+     * @return true if a tile overlapping the cell has collision.
+     */
+    public boolean isCollision(int column, int row) {
+        for (int l = 0; l < LAYERS; l++) {
+            GameItem tile = getTile(l, column, row);
+            if (tile != null && tile.isCollision) {
+                return true;
+            }
+        }
+        if (column < 0 || row < 0 || column >= columns || row >= rows) {
+            return false;
+        }
+        int cell = row * columns + column;
+        for (int k = freeCellStart[cell]; k < freeCellStart[cell + 1]; k++) {
+            if (palette[freeTypes[freeCellEntries[k]]].isCollision) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of free tiles overlapping the cell.
+     *
+     * @param column The column of the cell.
+     * @param row    The row of the cell.
+     * @return The number of free tiles, 0 outside the map.
+     */
+    public int getFreeCountAt(int column, int row) {
+        if (column < 0 || row < 0 || column >= columns || row >= rows) {
+            return 0;
+        }
+        int cell = row * columns + column;
+        return freeCellStart[cell + 1] - freeCellStart[cell];
+    }
+
+    public int columnOf(int x) {
+        return Math.floorDiv(x - originX, CELL_SIZE);
+    }
+
+    public int rowOf(int y) {
+        return Math.floorDiv(y - originY, CELL_SIZE);
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getOriginX() {
+        return originX;
+    }
+
+    public int getOriginY() {
+        return originY;
+    }
+
+    /**
+     * Get the number of palette entries including the unused index 0.
+     *
+     * @return The size of the palette.
+     */
+    public int getPaletteSize() {
+        return palette.length;
+    }
+
+    public GameItem getPaletteItem(int type) {
+        return palette[type];
+    }
+
+    public String getPaletteName(int type) {
+        return paletteNames[type];
+    }
+
+    public int getFreeCount() {
+        return freeTypes.length;
+    }
+
+    public GameItem getFreeTile(int i) {
+        return palette[freeTypes[i]];
+    }
+
+    public int getFreeX(int i) {
+        return freeX[i];
+    }
+
+    public int getFreeY(int i) {
+        return freeY[i];
+    }
+}
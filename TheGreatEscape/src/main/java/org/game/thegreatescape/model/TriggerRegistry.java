@@ -0,0 +1,133 @@
+package org.game.thegreatescape.model;
+
+import java.util.Arrays;
+
+/**
+ * The TriggerRegistry class keeps the coordinates of the few items of one level which trigger something
+ * when the player touches them: doors to the next level, touchable objects and the end of the game.
+ * Every kind of trigger has its own compact list, so checking the player does not visit floors and walls.
+ */
+public class TriggerRegistry {
+    public static final int DOOR = 0; // Items with isDoorToTheNextLevel
+    public static final int TOUCHABLE = 1; // Items with isTouchable
+    public static final int END = 2; // Items with isTheEnd
+    private static final int KINDS = 3;
+
+    private final GameItem[] items; // All items of the level in tiles iteration order
+    private final boolean[][] flags = new boolean[KINDS][]; // Flags seen by the last rebuild of every kind
+    private final GameItem[][] entryItems = new GameItem[KINDS][]; // Item of every entry of every kind
+    private final int[][] entryCoords = new int[KINDS][]; // Interleaved x and y of every entry of every kind
+    private final int[] counts = new int[KINDS]; // Number of entries of every kind
+
+    /**
+     * Constructor of a TriggerRegistry for the given level.
+     *
+     * @param gameData The game data of the level.
+     */
+    public TriggerRegistry(GameData gameData) {
+        items = gameData.tiles.values().toArray(new GameItem[0]);
+        for (int kind = 0; kind < KINDS; kind++) {
+            flags[kind] = new boolean[items.length];
+            entryItems[kind] = new GameItem[0];
+            entryCoords[kind] = new int[0];
+            rebuild(kind);
+        }
+    }
+
+    /**
+     * Updates the lists after the flags of the item changed, e.g. when a key was collected.
+     * Only the kinds whose flag changed are rebuilt.
+     *
+     * @param item The changed item.
+     */
+    public void refresh(GameItem item) {
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] == item) {
+                for (int kind = 0; kind < KINDS; kind++) {
+                    if (flags[kind][i] != hasKind(item, kind)) {
+                        rebuild(kind);
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds the first trigger of the given kind which intersects the given rectangle.
+     * The rectangle of every trigger is moved by the given offset before the check.
+     *
+     * @param kind    The kind of trigger, one of DOOR, TOUCHABLE or END.
+     * @param x       The x-coordinate of the rectangle.
+     * @param y       The y-coordinate of the rectangle.
+     * @param width   The width of the rectangle.
+     * @param height  The height of the rectangle.
+     * @param offsetX The horizontal offset of the triggers.
+     * @param offsetY The vertical offset of the triggers.
+     * @return The item of the trigger, or null if no trigger intersects the rectangle.
+     */
+    public GameItem find(int kind, int x, int y, int width, int height, int offsetX, int offsetY) {
+        GameItem[] kindItems = entryItems[kind];
+        int[] coords = entryCoords[kind];
+        for (int e = 0; e < counts[kind]; e++) {
+            GameItem item = kindItems[e];
+            if (Aabb.intersects(x, y, width, height, coords[2 * e] + offsetX, coords[2 * e + 1] + offsetY, item.height, item.width)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the number of triggers of the given kind.
+     *
+     * @param kind The kind of trigger.
+     * @return The number of coordinates of all items of that kind.
+     */
+    public int getCount(int kind) {
+        return counts[kind];
+    }
+
+    /**
+     * Checks if the item belongs to the given kind of trigger.
+     */
+    private static boolean hasKind(GameItem item, int kind) {
+        return switch (kind) {
+            case DOOR -> item.isDoorToTheNextLevel;
+            case TOUCHABLE -> item.isTouchable;
+            default -> item.isTheEnd;
+        };
+    }
+
+    /**
+     * Collects all coordinates of all items of the given kind.
+     */
+    private void rebuild(int kind) {
+        int count = 0;
+        for (int i = 0; i < items.length; i++) {
+            flags[kind][i] = hasKind(items[i], kind);
+            if (flags[kind][i]) {
+                count += items[i].coordCount();
+            }
+        }
+        if (entryItems[kind].length < count) {
+            entryItems[kind] = new GameItem[count];
+            entryCoords[kind] = new int[2 * count];
+        }
+        GameItem[] kindItems = entryItems[kind];
+        int[] coords = entryCoords[kind];
+        Arrays.fill(kindItems, null);
+        int e = 0;
+        for (int i = 0; i < items.length; i++) {
+            if (flags[kind][i]) {
+                for (int c = 0; c < items[i].coordCount(); c++) {
+                    kindItems[e] = items[i];
+                    coords[2 * e] = items[i].x(c);
+                    coords[2 * e + 1] = items[i].y(c);
+                    e++;
+                }
+            }
+        }
+        counts[kind] = count;
+    }
+}
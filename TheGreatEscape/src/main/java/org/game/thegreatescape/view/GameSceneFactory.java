@@ -1,9 +1,11 @@
 package org.game.thegreatescape.view;
 
 import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 
+import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
@@ -22,11 +24,11 @@ import javafx.scene.text.Text;
 import javafx.scene.transform.Translate;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
-import javafx.util.Pair;
 import org.game.thegreatescape.model.*;
 import org.game.thegreatescape.model.Character;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -56,6 +58,25 @@ public class GameSceneFactory {
     private long startTime;
     private Stage panelStage;
     AnimationTimer animationTimer;
+    private String[][] characterImages; // File names of the character's images, by direction
+
+    // Pre-rendered tiles per level, used when the tile layer mode is on
+    private boolean useTileLayer = true;
+    private final HashMap<String, TileLayer> tileLayers = new HashMap<>();
+
+    // Simulation running the model on its own thread and the snapshot drawn in the current frame
+    private Simulation simulation;
+    private RenderSnapshot snapshot;
+    private long lastFrame = -1;
+    private long frameTime;
+    private double renderX; // Interpolated player position drawn in the current frame
+    private double renderY;
+
+    // Part of the canvas visible in the window
+    private double viewX;
+    private double viewY;
+    private double viewWidth;
+    private double viewHeight;
 
     /**
      * Set the size of the canvas used for rendering the game scene.
@@ -68,6 +89,15 @@ public class GameSceneFactory {
         canvas.setHeight(y);
     }
 
+    /**
+     * Switch between drawing the pre-rendered tile layer and drawing every tile each frame.
+     *
+     * @param useTileLayer true to draw the level from the pre-rendered tile layer.
+     */
+    public void setUseTileLayer(boolean useTileLayer) {
+        this.useTileLayer = useTileLayer;
+    }
+
     /**
      * Constructor of a GameSceneFactory with the specified Stage.
      *
@@ -79,6 +109,31 @@ public class GameSceneFactory {
     }
 
 
+    /**
+     * Takes the file names of the character's images from the model, which only knows the file names.
+     * They are resolved to images and decoded when the game scene is created.
+     *
+     * @param player The character whose images are drawn.
+     */
+    public void printCharImages(Character player) {
+        characterImages = player.returnImagesList();
+    }
+
+    public String[][] getCharacterImages() {
+        return characterImages;
+    }
+
+    /**
+     * Loads all images of the character into the image cache, so the first steps do not stall on decoding.
+     */
+    private void preloadCharImages() {
+        for (String[] images : characterImages) {
+            for (String image : images) {
+                ImageCache.get(image);
+            }
+        }
+    }
+
     /**
      * Get the game scene for the specified level.
      * This method constructs and returns the game scene for the specified level,
@@ -90,6 +145,30 @@ public class GameSceneFactory {
     public Scene getGameScene(Model gameModel) {
         // Specifies Scene
         model = gameModel;
+        simulation = new Simulation(model);
+        // Record every change of the game, so it can be recovered after a crash.
+        // The recovery file is written on the simulation thread, which owns the model, not on the FX thread
+        simulation.submit(() -> {
+            try {
+                model.startJournal();
+            } catch (IOException e) {
+                logger.severe("Error occurred while starting the journal: " + e);
+            }
+        });
+        // The chest timer of a loaded game goes on where it was saved
+        long chestTimerRemaining = model.getChestTimerRemainingMillis();
+        if (chestTimerRemaining >= 0) {
+            startTimer(chestTimerRemaining);
+        }
+        snapshot = simulation.getSnapshot();
+        printCharImages(model.getPlayer());
+        preloadCharImages();
+        // Decode the images of a level on the prefetch thread, before the player enters it
+        model.getPrefetcher().setAssetWarmer(level -> {
+            for (GameItem item : level.tiles.values()) {
+                ImageCache.get(item.fileName);
+            }
+        });
         root = new StackPane(canvas);
 
         Scene scene = new Scene(root, WIDTH, HEIGHT);
@@ -110,31 +189,47 @@ public class GameSceneFactory {
             @Override
             public void handle(long l) {
 
-                model.update();
+                frameTime = lastFrame < 0 ? 0 : l - lastFrame;
+                lastFrame = l;
+                snapshot = simulation.getSnapshot();
+
+                // key released events go to other windows, e.g. the panel, so held keys are dropped without focus
+                if (!stage.isFocused()) {
+                    simulation.releaseAll();
+                }
+
                 render();
-                if (model.isClosePanel()) {
+                if (snapshot.isClosePanel()) {
                     if (panelStage != null && panelStage.isShowing()) {
                         panelStage.close();
-                        model.openChests(model.getLevel());
-                        model.openDoors("secondLevel");
+                        String level = snapshot.getLevel();
+                        simulation.submit(() -> {
+                            model.openChests(level);
+                            model.openDoors("secondLevel");
+                        });
                     }
                 }
-                if (model.isGameIsEnd()) {
+                if (snapshot.isGameIsEnd()) {
                     logger.info("Game ended.");
+                    // the finished game is not recovered, the journal is closed and deleted
+                    simulation.submit(model::stopJournal);
+                    simulation.stop();
+                    stopTimer();
                     endOfGame();
                     animationTimer.stop();
                 }
-                Pair<Boolean, Coord[]> result = model.ifNearToTouchableObjectForText();
-                if (result.getKey()) {
-                    for (Coord crd : result.getValue()) {
+                if (snapshot.getTouchableCoords() != null) {
+                    int[] coords = snapshot.getTouchableCoords();
+                    for (int i = 0; i < coords.length; i += 2) {
                         gc.setStroke(Color.WHITE);
                         gc.setLineWidth(0.8);
-                        gc.strokeText("Press F", crd.x, crd.y - 10);
+                        gc.strokeText("Press F", coords[i], coords[i + 1] - 10);
                     }
                 }
 
             }
         };
+        simulation.start();
         animationTimer.start();
 
 
@@ -142,36 +237,32 @@ public class GameSceneFactory {
         scene.setOnKeyPressed(new EventHandler<KeyEvent>() {
             @Override
             public void handle(KeyEvent keyEvent) {
-                if (keyEvent.getCode() == KeyCode.D) {
-                    model.goRight();
-                }
-                if (keyEvent.getCode() == KeyCode.W) {
-                    model.goUp();
-                }
-                if (keyEvent.getCode() == KeyCode.S) {
-                    model.goDown();
-                }
-                if (keyEvent.getCode() == KeyCode.A) {
-                    model.goLeft();
+                Direction direction = toDirection(keyEvent.getCode());
+                if (direction != null) {
+                    simulation.setDirection(direction, true);
                 }
                 if (keyEvent.getCode() == KeyCode.F) {
-                    if (model.ifNearToTouchableObject() != null) {
-                        switch (model.ifNearToTouchableObject()) {
+                    String touchableObject = snapshot.getTouchableName();
+                    String level = snapshot.getLevel();
+                    if (touchableObject != null) {
+                        switch (touchableObject) {
                             case "panel.png":
                                 logger.info("Player pressed a panel.");
                                 setScenePanel();
                                 break;
                             case "ChestWithKey.png":
                                 logger.info("Player pressed a chest with the key.");
-                                model.collectKey(model.getLevel());
-                                model.putInInventory(model.getLevel());
+                                simulation.submit(() -> {
+                                    model.collectKey(level);
+                                    model.putInInventory(level);
+                                });
                                 break;
                             case "craftingTable.png":
                                 logger.info("Player pressed a crafting table.");
-                                if (model.checkIfKeyIsReady()) {
+                                if (snapshot.isKeyIsReady()) {
                                     logger.info("Player has two part of the key.");
                                     printForThreeSecond("Door to the fourth room is open now");
-                                    model.openDoors("thirdLevel");
+                                    simulation.submit(() -> model.openDoors("thirdLevel"));
                                 } else {
                                     logger.info("Player does not have two part of the key.");
                                     printForThreeSecond("You need two half of the key first");
@@ -179,7 +270,7 @@ public class GameSceneFactory {
                                 break;
                             case "button.png":
                                 logger.info("Player pressed button.");
-                                model.openChests("thirdLevel");
+                                simulation.submit(() -> model.openChests("thirdLevel"));
                                 logger.info("Timer set.");
                                 setTimer();
                                 printForThreeSecond("Chest was opened in the third room. Get it before time runs out !!!");
@@ -194,17 +285,9 @@ public class GameSceneFactory {
         scene.setOnKeyReleased(new EventHandler<KeyEvent>() {
             @Override
             public void handle(KeyEvent keyEvent) {
-                if (keyEvent.getCode() == KeyCode.D) {
-                    model.getPlayer().stayRight();
-                }
-                if (keyEvent.getCode() == KeyCode.W) {
-                    model.getPlayer().stayUp();
-                }
-                if (keyEvent.getCode() == KeyCode.A) {
-                    model.getPlayer().stayLeft();
-                }
-                if (keyEvent.getCode() == KeyCode.S) {
-                    model.getPlayer().stayDown();
+                Direction direction = toDirection(keyEvent.getCode());
+                if (direction != null) {
+                    simulation.setDirection(direction, false);
                 }
             }
         });
@@ -212,6 +295,50 @@ public class GameSceneFactory {
         return scene;
     }
 
+    /**
+     * Get the movement direction controlled by the key.
+     *
+     * @param code The code of the key.
+     * @return The direction, or null if the key does not move the player.
+     */
+    private Direction toDirection(KeyCode code) {
+        return switch (code) {
+            case W -> Direction.UP;
+            case S -> Direction.DOWN;
+            case A -> Direction.LEFT;
+            case D -> Direction.RIGHT;
+            default -> null;
+        };
+    }
+
+    /**
+     * Computes the player position drawn in this frame between the positions before and after the last step.
+     * The player steps only every few ticks, so the movement is spread over the time between two steps.
+     */
+    private void interpolatePlayer() {
+        double alpha = Math.min((double) (System.nanoTime() - snapshot.getStepTime()) / Simulation.STEP_NANOS, 1);
+        renderX = snapshot.getPreviousX() + (snapshot.getPlayerX() - snapshot.getPreviousX()) * alpha;
+        renderY = snapshot.getPreviousY() + (snapshot.getPlayerY() - snapshot.getPreviousY()) * alpha;
+    }
+
+    /**
+     * Get the simulation running the model, used to measure ticks per second.
+     *
+     * @return The simulation.
+     */
+    public Simulation getSimulation() {
+        return simulation;
+    }
+
+    /**
+     * Get the time between the last two rendered frames.
+     *
+     * @return The frame time in nanoseconds.
+     */
+    public long getFrameTime() {
+        return frameTime;
+    }
+
     /**
      * Renders the game elements onto the canvas.
      * This method clears the canvas, fills it with a background color, adjusts the canvas size
@@ -219,12 +346,13 @@ public class GameSceneFactory {
      */
     private void render() {
         Character player = model.getPlayer();
+        interpolatePlayer();
         gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
         gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
 
 //        root.getChildren().addAll(blackBackground);
 
-        if (model.getLevel().equals("thirdLevel")) {
+        if (snapshot.getLevel().equals("thirdLevel")) {
             setCanvas(WIDTH_CANVAS, HEIGHT_CANVAS);
             updateCameraPosition();
         } else {
@@ -232,32 +360,68 @@ public class GameSceneFactory {
             setCanvas(WIDTH, HEIGHT);
         }
 
-        for (String key : model.getGd().tiles.keySet()) {
-            printRoom(gc, model.getGd().tiles.get(key));
-//            checkCollision(gc, model.getGd().tiles.get(key));
+        updateViewport();
+        if (useTileLayer && TileLayer.canBake(snapshot.getTiles())) {
+            printTileLayer(gc);
+        } else {
+            printVisibleTiles(gc);
         }
 
 //        gc.fillRect(player.getCharacterX(), player.getCharacterY(), player.getWIDTH(), player.getHEIGHT());
-        gc.drawImage(player.getImage(), player.getCharacterX(), player.getCharacterY(), player.getWIDTH(), player.getHEIGHT());
-        if (model.getLevel().equals("thirdLevel")) {
-            Image img = new Image("dark.png");
-            gc.drawImage(img, model.getPlayer().getCharacterX() - 574, model.getPlayer().getCharacterY() - 518, 1200, 1000);
+        gc.drawImage(ImageCache.get(snapshot.getPlayerImageName()), renderX, renderY, player.getWIDTH(), player.getHEIGHT());
+        if (snapshot.getLevel().equals("thirdLevel")) {
+            Image img = ImageCache.get("dark.png");
+            gc.drawImage(img, renderX - 574, renderY - 518, 1200, 1000);
         }
 
     }
 
     /**
-     * Draw room elements
+     * Computes the part of the canvas which is visible in the window.
+     * One tile is added on every side, so the tiles are ready before the camera moves to them.
+     */
+    private void updateViewport() {
+        Point2D topLeft = canvas.sceneToLocal(0, 0);
+        Point2D bottomRight = canvas.sceneToLocal(WIDTH, HEIGHT);
+        viewX = Math.min(topLeft.getX(), bottomRight.getX()) - TileGrid.CELL_SIZE;
+        viewY = Math.min(topLeft.getY(), bottomRight.getY()) - TileGrid.CELL_SIZE;
+        viewWidth = Math.abs(bottomRight.getX() - topLeft.getX()) + 2 * TileGrid.CELL_SIZE;
+        viewHeight = Math.abs(bottomRight.getY() - topLeft.getY()) + 2 * TileGrid.CELL_SIZE;
+    }
+
+    /**
+     * Draw room from the pre-rendered tile layer of the current level.
+     * The layer is baked on the first visit and items changed in the snapshot are repainted before drawing.
      *
-     * @param gc       graphic context.
-     * @param gameItem gameItem from model.
+     * @param gc graphic context.
      */
-    private void printRoom(GraphicsContext gc, GameItem gameItem) {
-        String fileName = gameItem.fileName;
-        int width = gameItem.width;
-        int height = gameItem.height;
-        for (Coord crd : gameItem.coords) {
-            gc.drawImage(new Image(fileName), crd.x, crd.y, width, height);
+    private void printTileLayer(GraphicsContext gc) {
+        String level = snapshot.getLevel();
+        TileLayer layer = tileLayers.get(level);
+        if (layer == null) {
+            layer = new TileLayer(snapshot.getTiles(), snapshot.getTileImages());
+            tileLayers.put(level, layer);
+        } else {
+            layer.update(snapshot.getTileImages());
+        }
+        layer.draw(gc, viewX, viewY, viewWidth, viewHeight);
+    }
+
+    /**
+     * Draw room elements which are visible in the window.
+     * Only tiles found by the tile grid inside the viewport are drawn.
+     *
+     * @param gc graphic context.
+     */
+    private void printVisibleTiles(GraphicsContext gc) {
+        TileGrid grid = snapshot.getTiles();
+        String[] images = snapshot.getTileImages();
+        int count = grid.query((int) viewX, (int) viewY, (int) Math.ceil(viewWidth), (int) Math.ceil(viewHeight));
+        int[] entries = grid.getResults();
+        for (int k = 0; k < count; k++) {
+            int e = entries[k];
+            gc.drawImage(ImageCache.get(images[grid.getItemIndex(e)]), grid.getX(e), grid.getY(e),
+                    grid.getEntryWidth(e), grid.getEntryHeight(e));
         }
     }
 
@@ -267,8 +431,8 @@ public class GameSceneFactory {
      * of the player character.
      */
     private void updateCameraPosition() {
-        int playerX = model.getPlayer().getCharacterX();
-        int playerY = model.getPlayer().getCharacterY();
+        double playerX = renderX;
+        double playerY = renderY;
 
         double cameraX = playerX - (WIDTH / 1.3);
         double cameraY = playerY - (HEIGHT / 1.5);
@@ -306,13 +470,13 @@ public class GameSceneFactory {
         controllerPanel.getStylesheets().add("styles.css");
 
         first.setOnAction(e -> {
-            model.checkButton(1);
+            simulation.submit(() -> model.checkButton(1));
         });
         second.setOnAction(e -> {
-            model.checkButton(2);
+            simulation.submit(() -> model.checkButton(2));
         });
         third.setOnAction(e -> {
-            model.checkButton(3);
+            simulation.submit(() -> model.checkButton(3));
         });
 
         panelStage.show();
@@ -353,30 +517,45 @@ public class GameSceneFactory {
      */
     public void setTimer() {
         if (timer == null) {
-            startTime = System.nanoTime();
+            simulation.submit(() -> model.startChestTimer());
+            startTimer(Model.CHEST_TIMER_SECONDS * 1000L);
+        }
+    }
+
+    /**
+     * Starts the timer showing the given time left, e.g. the time left of a loaded game.
+     *
+     * @param remainingMillis The time left in milliseconds.
+     */
+    private void startTimer(long remainingMillis) {
+        if (timer == null) {
+            startTime = System.nanoTime() - (Model.CHEST_TIMER_SECONDS * 1000L - remainingMillis) * 1_000_000;
             timer = new AnimationTimer() {
                 @Override
                 public void handle(long now) {
                     long elapsedTimeSec = (now - startTime) / 1_000_000_000;
-                    long remainingTime = Math.max(60 - elapsedTimeSec, 0);
+                    long remainingTime = Math.max(Model.CHEST_TIMER_SECONDS - elapsedTimeSec, 0);
 
 //                    model.openChests("thirdLevel");
 
                     drawTime(remainingTime);
                     if (remainingTime == 0) {
                         logger.info("Timer is over.");
-                        logger.info("Check if chest on the third level is not collected.");
-                        if (model.getItemFromGD("thirdLevel", "Chest").fileName.equals("ChestWithKey.png")) {
-                            logger.info("Key on the third level was not collected.");
-                            model.closeChest("thirdLevel");
-                        }
-
-                        logger.info("Check if key on the third level was collected.");
-                        if (model.getItemFromGD("thirdLevel", "Chest").fileName.equals("OpenEmptyChest.png")) {
-                            logger.info("Key on the third level was collected.");
-                            model.unsetTouching("secondLevel", "button.png");
-                            logger.info("Button unset.");
-                        }
+                        simulation.submit(() -> {
+                            model.stopChestTimer();
+                            logger.info("Check if chest on the third level is not collected.");
+                            if (model.getItemFromGD("thirdLevel", "Chest").fileName.equals("ChestWithKey.png")) {
+                                logger.info("Key on the third level was not collected.");
+                                model.closeChest("thirdLevel");
+                            }
+
+                            logger.info("Check if key on the third level was collected.");
+                            if (model.getItemFromGD("thirdLevel", "Chest").fileName.equals("OpenEmptyChest.png")) {
+                                logger.info("Key on the third level was collected.");
+                                model.unsetTouching("secondLevel", "button.png");
+                                logger.info("Button unset.");
+                            }
+                        });
 
                         timer = null;
                         stop();
@@ -389,6 +568,16 @@ public class GameSceneFactory {
 
     }
 
+    /**
+     * Stops the timer showing the time left, e.g. when the game is left. The time left stays in the model.
+     */
+    private void stopTimer() {
+        if (timer != null) {
+            timer.stop();
+            timer = null;
+        }
+    }
+
     /**
      * Draws the remaining time in seconds on the canvas on the top of the player character.
      * Additional function to setTimer();
@@ -398,8 +587,8 @@ public class GameSceneFactory {
     private void drawTime(long remainingTime) {
         gc.setStroke(Color.WHITE);
         gc.setLineWidth(1);
-        double xch = model.getPlayer().getCharacterX();
-        double ych = model.getPlayer().getCharacterY();
+        double xch = renderX;
+        double ych = renderY;
 
         gc.strokeText("Time: " + remainingTime, xch, ych - 10);
     }
@@ -485,17 +674,30 @@ public class GameSceneFactory {
         exit.getChildren().addAll(last);
 
         yesButton.setOnAction((ActionEvent event) -> {
-            try {
-                model.saveGame();
-                logger.info( "Game saved and returned to main menu.");
-            } catch (IOException e) {
-                logger.severe( "Error occurred while saving game: " + e);
-                throw new RuntimeException(e);
-            }
-
-            MainMenuFactory n = new MainMenuFactory(stage);
-            stage.setScene(n.getMainMenu());
-            exitStage.close();
+            yesButton.setDisable(true);
+            // the state is captured on the simulation thread and written in the background,
+            // the main menu is shown when the saved game is on the disk.
+            // The simulation stops in the same tick, the journal reads of its last update tolerate the close
+            simulation.submit(() -> {
+                simulation.stop();
+                model.saveGameAsync().whenComplete((result, e) -> {
+                    // the journal is only discarded when the game is saved, otherwise it can still be recovered
+                    if (e != null) {
+                        logger.severe( "Error occurred while saving game: " + e);
+                        model.closeJournal();
+                    } else {
+                        logger.info( "Game saved and returned to main menu.");
+                        model.stopJournal();
+                    }
+                    Platform.runLater(() -> {
+                        animationTimer.stop();
+                        MainMenuFactory n = new MainMenuFactory(stage);
+                        stage.setScene(n.getMainMenu());
+                        exitStage.close();
+                    });
+                });
+            });
+            stopTimer();
         });
 
         noButton.setOnAction((ActionEvent event) -> {
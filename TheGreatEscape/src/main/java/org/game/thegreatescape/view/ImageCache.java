@@ -0,0 +1,83 @@
+package org.game.thegreatescape.view;
+
+import javafx.scene.image.Image;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * The ImageCache class is a process-wide registry of decoded images.
+ * Every resource is decoded only once and then shared by the game renderer, the character,
+ * the main menu and the level editor.
+ */
+public final class ImageCache {
+    private static final Logger logger = Logger.getLogger(ImageCache.class.getName());
+
+    // Decoded images keyed by resource file name
+    private static final Map<String, Image> images = new ConcurrentHashMap<>();
+
+    // Counters for checking that steady-state frames decode nothing
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private ImageCache() {
+    }
+
+    /**
+     * Get the decoded image for the given resource file name.
+     * The image is decoded on the first request and reused afterwards.
+     *
+     * @param fileName The file name of the image resource.
+     * @return The decoded image.
+     */
+    public static Image get(String fileName) {
+        Image img = images.get(fileName);
+        if (img != null) {
+            hits.incrementAndGet();
+            return img;
+        }
+        return images.computeIfAbsent(fileName, name -> {
+            misses.incrementAndGet();
+            logger.fine("Decoding image: " + name);
+            return new Image(name);
+        });
+    }
+
+    /**
+     * Get the number of requests served from the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public static long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of requests which had to decode the image.
+     *
+     * @return The number of cache misses.
+     */
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Get the number of decoded images held by the cache.
+     *
+     * @return The number of cached images.
+     */
+    public static int size() {
+        return images.size();
+    }
+
+    /**
+     * Removes all decoded images and resets the counters.
+     */
+    public static void clear() {
+        images.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+}
@@ -0,0 +1,50 @@
+package org.game.thegreatescape.view;
+
+import org.game.thegreatescape.model.HeadlessRunner;
+
+import java.io.IOException;
+import java.util.logging.LogManager;
+
+/**
+ * The Launcher class is the entry point choosing between the game window and the headless mode.
+ * It has no JavaFX dependencies, so the headless mode never loads the JavaFX application class.
+ */
+public final class Launcher {
+
+    private Launcher() {
+    }
+
+    /**
+     * Main method of the game. All flags are read before anything is started.
+     * With --headless the game runs without a window, driven by the script given as the next argument,
+     * or by the standard input.
+     *
+     * @param args Command-line arguments: --disable-logging, --headless [script].
+     * @throws IOException If the script of the headless mode cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        boolean enableLogging = true;
+        boolean headless = false;
+        String scriptPath = null;
+
+        for (String arg : args) {
+            if (arg.equals("--disable-logging")) {
+                enableLogging = false;
+            } else if (arg.equals("--headless")) {
+                headless = true;
+            } else if (!arg.startsWith("--")) {
+                scriptPath = arg;
+            }
+        }
+
+        if (!enableLogging) {
+            LogManager.getLogManager().reset();
+        }
+
+        if (headless) {
+            HeadlessRunner.runScript(scriptPath);
+        } else {
+            Game.main(args);
+        }
+    }
+}
@@ -56,7 +56,7 @@ public class MainMenuFactory {
      */
     public Scene getMainMenu() {
         //images
-        Image img = new Image("MainGameCover.png");
+        Image img = ImageCache.get("MainGameCover.png");
         ImageView imgView = new ImageView();
         imgView.setImage(img);
         imgView.setFitWidth(WIDTH);
@@ -82,7 +82,7 @@ public class MainMenuFactory {
         //load game button events
         LoadGameButton.setOnAction((ActionEvent event) ->{
             logger.info("Load Game button clicked.");
-            stage.setScene(new GameSceneFactory(stage).getGameScene(new Model()));
+            stage.setScene(new GameSceneFactory(stage).getGameScene(Model.recover()));
         });
 
         stage.setOnCloseRequest(windowEvent -> {
@@ -0,0 +1,171 @@
+package org.game.thegreatescape.view;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import org.game.thegreatescape.model.TileGrid;
+
+/**
+ * The TileLayer class holds the tiles of one level pre-rendered into an offscreen image.
+ * The level is drawn once, every frame only blits the visible part of the image, and changed items
+ * are repainted in their own cells only. Only the repainted region is copied into the image again,
+ * so a changed item costs a few cells and not a snapshot of the whole level.
+ */
+public class TileLayer {
+    public static final int MAX_SIZE = 4096; // Largest level in pixels which is pre-rendered
+
+    private final TileGrid grid;
+    private String[] images; // File names of the items as they are painted
+    private final Canvas offscreen;
+    private final GraphicsContext gc;
+    private final SnapshotParameters parameters = new SnapshotParameters();
+    private WritableImage image; // Snapshot of the offscreen canvas, null until the first draw
+
+    // Region of the offscreen canvas repainted since the last snapshot, empty if right <= left
+    private int dirtyLeft = Integer.MAX_VALUE;
+    private int dirtyTop = Integer.MAX_VALUE;
+    private int dirtyRight = Integer.MIN_VALUE;
+    private int dirtyBottom = Integer.MIN_VALUE;
+
+    /**
+     * Constructor of a TileLayer which bakes all tiles of the given level.
+     *
+     * @param grid   The tile grid of the level, only used by the renderer.
+     * @param images The file name of every item of the level.
+     */
+    public TileLayer(TileGrid grid, String[] images) {
+        this.grid = grid;
+        this.images = images;
+        offscreen = new Canvas(Math.max(grid.getWidth(), 1), Math.max(grid.getHeight(), 1));
+        gc = offscreen.getGraphicsContext2D();
+        parameters.setFill(Color.TRANSPARENT);
+
+        for (int e = 0; e < grid.getEntryCount(); e++) {
+            drawEntry(e);
+        }
+    }
+
+    /**
+     * Checks if the level is small enough to be pre-rendered into one image.
+     *
+     * @param grid The tile grid of the level.
+     * @return true if the level fits into one image.
+     */
+    public static boolean canBake(TileGrid grid) {
+        return grid.getWidth() <= MAX_SIZE && grid.getHeight() <= MAX_SIZE;
+    }
+
+    /**
+     * Repaints the items whose file name differs from the painted one.
+     * Nothing is compared while the same array as before is passed.
+     *
+     * @param images The file name of every item of the level, from the latest snapshot.
+     */
+    public void update(String[] images) {
+        if (images == this.images) {
+            return;
+        }
+        String[] painted = this.images;
+        this.images = images;
+        for (int i = 0; i < images.length; i++) {
+            if (!images[i].equals(painted[i])) {
+                invalidate(i);
+            }
+        }
+    }
+
+    /**
+     * Repaints the cells covered by the given item.
+     * All items overlapping these cells are drawn again in the original order.
+     *
+     * @param index The index of the item whose appearance changed.
+     */
+    private void invalidate(int index) {
+        for (int e = grid.getFirstEntry(index); e < grid.getFirstEntry(index + 1); e++) {
+            int x = grid.getX(e);
+            int y = grid.getY(e);
+            int w = grid.getEntryWidth(e);
+            int h = grid.getEntryHeight(e);
+
+            gc.save();
+            gc.beginPath();
+            gc.rect(x, y, w, h);
+            gc.clip();
+            gc.clearRect(x, y, w, h);
+            int count = grid.query(x, y, w, h);
+            int[] entries = grid.getResults();
+            for (int k = 0; k < count; k++) {
+                drawEntry(entries[k]);
+            }
+            gc.restore();
+
+            dirtyLeft = Math.min(dirtyLeft, x);
+            dirtyTop = Math.min(dirtyTop, y);
+            dirtyRight = Math.max(dirtyRight, x + w);
+            dirtyBottom = Math.max(dirtyBottom, y + h);
+        }
+    }
+
+    /**
+     * Draws the visible part of the baked tiles onto the given graphics context.
+     *
+     * @param target The graphics context to draw on.
+     * @param x      The x-coordinate of the visible area.
+     * @param y      The y-coordinate of the visible area.
+     * @param width  The width of the visible area.
+     * @param height The height of the visible area.
+     */
+    public void draw(GraphicsContext target, double x, double y, double width, double height) {
+        if (image == null) {
+            image = offscreen.snapshot(parameters, null);
+            clearDirty();
+        } else if (dirtyRight > dirtyLeft && dirtyBottom > dirtyTop) {
+            copyDirtyRegion();
+        }
+        double left = Math.max(x, 0);
+        double top = Math.max(y, 0);
+        double right = Math.min(x + width, image.getWidth());
+        double bottom = Math.min(y + height, image.getHeight());
+        if (right > left && bottom > top) {
+            target.drawImage(image, left, top, right - left, bottom - top, left, top, right - left, bottom - top);
+        }
+    }
+
+    /**
+     * Snapshots the repainted region of the offscreen canvas and copies it into the cached image.
+     */
+    private void copyDirtyRegion() {
+        int left = Math.max(dirtyLeft, 0);
+        int top = Math.max(dirtyTop, 0);
+        int right = Math.min(dirtyRight, (int) image.getWidth());
+        int bottom = Math.min(dirtyBottom, (int) image.getHeight());
+        clearDirty();
+        if (right <= left || bottom <= top) {
+            return;
+        }
+        parameters.setViewport(new Rectangle2D(left, top, right - left, bottom - top));
+        WritableImage region = offscreen.snapshot(parameters, null);
+        parameters.setViewport(null);
+        image.getPixelWriter().setPixels(left, top, right - left, bottom - top, region.getPixelReader(), 0, 0);
+    }
+
+    private void clearDirty() {
+        dirtyLeft = Integer.MAX_VALUE;
+        dirtyTop = Integer.MAX_VALUE;
+        dirtyRight = Integer.MIN_VALUE;
+        dirtyBottom = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Draws one entry of the grid onto the offscreen canvas.
+     *
+     * @param e The entry number.
+     */
+    private void drawEntry(int e) {
+        gc.drawImage(ImageCache.get(images[grid.getItemIndex(e)]), grid.getX(e), grid.getY(e),
+                grid.getEntryWidth(e), grid.getEntryHeight(e));
+    }
+}
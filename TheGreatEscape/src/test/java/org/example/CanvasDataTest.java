@@ -0,0 +1,106 @@
+package org.example;
+
+import org.game.thegreatescape.levelEditor.CanvasData;
+import org.game.thegreatescape.levelEditor.ImageData;
+import org.game.thegreatescape.model.GameData;
+import org.game.thegreatescape.model.LevelParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CanvasDataTest {
+    static Logger logger = Logger.getLogger(CanvasDataTest.class.getName());
+
+    @Test
+    public void removeImageAtReturnsFirstAddedImageTest() {
+        CanvasData canvasData = new CanvasData();
+        ImageData first = new ImageData("wall.png", 64, 64, 64, 64);
+        ImageData second = new ImageData("floor.png", 64, 64, 64, 64);
+        canvasData.addImage(first);
+        canvasData.addImage(second);
+
+        assertSame(first, canvasData.removeImageAt(64, 64));
+        assertSame(second, canvasData.removeImageAt(64, 64));
+        assertNull(canvasData.removeImageAt(64, 64));
+        assertTrue(canvasData.getImagesList().isEmpty());
+    }
+
+    @Test
+    public void imagesInRegionAreFoundInDrawingOrderTest() {
+        CanvasData canvasData = new CanvasData();
+        ImageData top = new ImageData("a.png", 120, 120, 64, 64);
+        ImageData left = new ImageData("b.png", 8, 96, 64, 64);
+        ImageData outside = new ImageData("c.png", 256, 256, 64, 64);
+        ImageData touching = new ImageData("d.png", 128, 64, 64, 64);
+        canvasData.addImage(top);
+        canvasData.addImage(left);
+        canvasData.addImage(outside);
+        canvasData.addImage(touching);
+
+        List<ImageData> found = canvasData.getImagesIn(64, 64, 64, 64);
+
+        assertEquals(List.of(top, left), found);
+    }
+
+    private static CanvasData floor(int columns, int rows) {
+        CanvasData canvasData = new CanvasData();
+        for (int y = 0; y < rows * 64; y += 64) {
+            for (int x = 0; x < columns * 64; x += 64) {
+                canvasData.addImage(new ImageData("floor1.png", x, y, 64, 64));
+            }
+        }
+        return canvasData;
+    }
+
+    @Test
+    public void regionQueryDoesNotScanAllImagesTest() {
+        CanvasData small = floor(20, 20);
+        CanvasData large = floor(250, 200);
+
+        assertEquals(4, small.getImagesIn(640 + 8, 640 + 8, 64, 64).size());
+        assertEquals(4, large.getImagesIn(640 + 8, 640 + 8, 64, 64).size());
+
+        // The query compares the images of the cells around the region only, however large the map is
+        assertEquals(small.getLastQueryExamined(), large.getLastQueryExamined());
+        assertTrue(large.getLastQueryExamined() <= 9);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            large.getImagesIn(640 + 8, 640 + 8, 64, 64);
+        }
+        logger.info("Region query over " + large.getImagesList().size() + " images: "
+                + (System.nanoTime() - start) / 1000 + " ns");
+    }
+
+    @Test
+    public void largeLevelIsOpenedTest() throws IOException {
+        StringBuilder json = new StringBuilder("{\"tiles\":{\"floor1\":{\"fileName\":\"floor1.png\",\"width\":64,\"height\":64,\"coords\":[");
+        for (int i = 0; i < 100_000; i++) {
+            json.append(i > 0 ? "," : "").append("{\"x\":").append(i % 400 * 64).append(",\"y\":").append(i / 400 * 64).append('}');
+        }
+        json.append("]},\"door\":{\"fileName\":\"floor1.png\",\"width\":64,\"height\":64,\"isDoorToTheNextLevel\":true,")
+                .append("\"nextLevel\":\"secondLevel\",\"nextX\":32,\"nextY\":352,\"coords\":[{\"x\":0,\"y\":0}]}}}");
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+
+        long start = System.nanoTime();
+        GameData level = LevelParser.readLevel(new ByteArrayInputStream(bytes));
+        CanvasData canvasData = new CanvasData();
+        canvasData.addLevel(level);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        logger.info("Opening a level with " + canvasData.getImagesList().size() + " images: " + millis + " ms");
+        assertEquals(100_001, canvasData.getImagesList().size());
+        ImageData door = canvasData.getImagesList().get(100_000);
+        assertEquals("door", door.getItemName());
+        assertEquals("secondLevel", door.getItem().nextLevel);
+        assertEquals(List.of(canvasData.getImagesList().get(0), door), canvasData.getImagesIn(0, 0, 64, 64));
+        // The opened images are indexed by cell, so the editor does not scan the level to draw a chunk
+        assertEquals(5, canvasData.getLastQueryExamined());
+    }
+}
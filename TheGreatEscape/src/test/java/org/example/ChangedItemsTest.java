@@ -0,0 +1,20 @@
+package org.example;
+
+import org.game.thegreatescape.model.Model;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangedItemsTest {
+
+    @Test
+    public void pollChangedItemsTest() {
+        Model model = new Model(1);
+
+        model.openDoors("secondLevel");
+
+        assertEquals(1, model.pollChangedItems("secondLevel").size());
+        assertTrue(model.pollChangedItems("secondLevel").isEmpty());
+        assertTrue(model.pollChangedItems("firstLevel").isEmpty());
+    }
+}
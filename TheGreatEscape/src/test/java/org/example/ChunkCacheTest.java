@@ -0,0 +1,79 @@
+package org.example;
+
+import org.game.thegreatescape.levelEditor.ChunkCache;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkCacheTest {
+
+    @Test
+    public void chunkIsRenderedOnceTest() {
+        ChunkCache<String> cache = new ChunkCache<>(4, (col, row) -> col + "," + row);
+
+        assertEquals("1,2", cache.get(1, 2));
+        assertEquals("1,2", cache.get(1, 2));
+
+        assertEquals(1, cache.getRenders());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void emptyChunkIsCachedTest() {
+        ChunkCache<String> cache = new ChunkCache<>(4, (col, row) -> null);
+
+        assertNull(cache.get(0, 0));
+        assertNull(cache.get(0, 0));
+
+        assertEquals(1, cache.getRenders());
+        assertTrue(cache.isCached(0, 0));
+    }
+
+    @Test
+    public void leastRecentlyUsedChunkIsEvictedTest() {
+        ChunkCache<String> cache = new ChunkCache<>(2, (col, row) -> col + "," + row);
+
+        cache.get(0, 0);
+        cache.get(1, 0);
+        cache.get(0, 0);
+        cache.get(2, 0);
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.isCached(0, 0));
+        assertFalse(cache.isCached(1, 0));
+        assertTrue(cache.isCached(2, 0));
+    }
+
+    @Test
+    public void invalidateForgetsOverlappingChunksTest() {
+        ChunkCache<String> cache = new ChunkCache<>(16, (col, row) -> col + "," + row);
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 3; col++) {
+                cache.get(col, row);
+            }
+        }
+
+        // An image across the corner of four chunks
+        cache.invalidate(ChunkCache.CHUNK_SIZE - 8, ChunkCache.CHUNK_SIZE - 8, 64, 64);
+
+        assertEquals(5, cache.size());
+        assertFalse(cache.isCached(0, 0));
+        assertFalse(cache.isCached(1, 1));
+        assertTrue(cache.isCached(2, 2));
+    }
+
+    @Test
+    public void memoryIsBoundedWhilePanningTest() {
+        ChunkCache<String> cache = new ChunkCache<>(ChunkCache.DEFAULT_CAPACITY, (col, row) -> col + "," + row);
+
+        for (int col = 0; col < 1000; col++) {
+            for (int row = 0; row < 6; row++) {
+                cache.get(col, row);
+            }
+        }
+
+        assertEquals(ChunkCache.DEFAULT_CAPACITY, cache.size());
+        assertTrue(cache.isCached(999, 5));
+        assertEquals(-1, ChunkCache.chunkOf(-1));
+    }
+}
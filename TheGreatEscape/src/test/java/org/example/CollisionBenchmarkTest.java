@@ -0,0 +1,132 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import javafx.scene.shape.Rectangle;
+import org.game.thegreatescape.model.Coord;
+import org.game.thegreatescape.model.GameData;
+import org.game.thegreatescape.model.GameItem;
+import org.game.thegreatescape.model.TileGrid;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares collision checks through the tile grid with the linear scan over all tiles.
+ */
+public class CollisionBenchmarkTest {
+    static Logger logger = Logger.getLogger(CollisionBenchmarkTest.class.getName());
+    private static final int PLAYER_WIDTH = 53;
+    private static final int PLAYER_HEIGHT = 48;
+    private static final int QUERIES = 20_000;
+
+    // The collision check used before the tile grid
+    private static boolean linearScan(GameData gameData, Rectangle playerRectangle) {
+        for (GameItem item : gameData.tiles.values()) {
+            if (item.isCollision) {
+                for (Coord crd : item.getCoords()) {
+                    Rectangle itemRectangle = new Rectangle(crd.x, crd.y, item.height, item.width);
+                    if (playerRectangle.getBoundsInParent().intersects(itemRectangle.getBoundsInParent())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static GameData syntheticLevel(int size) {
+        GameItem floor = new GameItem();
+        floor.fileName = "floor1.png";
+        floor.width = 64;
+        floor.height = 64;
+        GameItem wall = new GameItem();
+        wall.fileName = "wall1.png";
+        wall.width = 64;
+        wall.height = 64;
+        wall.isCollision = true;
+
+        Random random = new Random(42);
+        Coord[] floors = new Coord[size * size];
+        Coord[] walls = new Coord[size * size];
+        int floorCount = 0;
+        int wallCount = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                Coord crd = new Coord();
+                crd.x = i * 64;
+                crd.y = j * 64;
+                if (i == 0 || j == 0 || i == size - 1 || j == size - 1 || random.nextInt(10) == 0) {
+                    walls[wallCount++] = crd;
+                } else {
+                    floors[floorCount++] = crd;
+                }
+            }
+        }
+        floor.setCoords(java.util.Arrays.copyOf(floors, floorCount));
+        wall.setCoords(java.util.Arrays.copyOf(walls, wallCount));
+
+        GameData gameData = new GameData();
+        gameData.tiles.put("floor1", floor);
+        gameData.tiles.put("wall1", wall);
+        return gameData;
+    }
+
+    private static void compare(String name, GameData gameData, int queries) {
+        TileGrid grid = new TileGrid(gameData);
+        Random random = new Random(7);
+        int[] xs = new int[queries];
+        int[] ys = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            xs[i] = random.nextInt(Math.max(grid.getWidth(), 1));
+            ys[i] = random.nextInt(Math.max(grid.getHeight(), 1));
+        }
+
+        boolean[] expected = new boolean[queries];
+        long start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            expected[i] = linearScan(gameData, new Rectangle(xs[i], ys[i], PLAYER_WIDTH, PLAYER_HEIGHT));
+        }
+        long linearTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            assertEquals(expected[i], grid.isCollision(xs[i], ys[i], PLAYER_WIDTH, PLAYER_HEIGHT));
+        }
+        long gridTime = System.nanoTime() - start;
+
+        logger.info(String.format("%s: %d tiles, linear scan %.1f us/query, tile grid %.3f us/query", name,
+                grid.getEntryCount(), linearTime / 1000.0 / queries, gridTime / 1000.0 / queries));
+    }
+
+    @Test
+    public void shippedLevelsTest() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (String level : new String[]{"firstLevel", "secondLevel", "thirdLevel", "fourthLevel"}) {
+            compare(level, objectMapper.readValue(new File(level + ".json"), GameData.class), QUERIES);
+        }
+    }
+
+    @Test
+    public void syntheticLevelTest() {
+        compare("synthetic 500x500", syntheticLevel(500), 200);
+    }
+
+    @Test
+    public void refreshAfterDoorOpenedTest() {
+        GameData gameData = syntheticLevel(3);
+        GameItem wall = gameData.tiles.get("wall1");
+        TileGrid grid = new TileGrid(gameData);
+
+        assertEquals(true, grid.isCollision(0, 0, PLAYER_WIDTH, PLAYER_HEIGHT));
+
+        wall.isCollision = false;
+        grid.refresh(wall);
+
+        assertEquals(false, grid.isCollision(0, 0, PLAYER_WIDTH, PLAYER_HEIGHT));
+    }
+}
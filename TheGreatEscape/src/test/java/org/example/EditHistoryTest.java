@@ -0,0 +1,119 @@
+package org.example;
+
+import javafx.geometry.Rectangle2D;
+import org.game.thegreatescape.levelEditor.CanvasData;
+import org.game.thegreatescape.levelEditor.EditHistory;
+import org.game.thegreatescape.levelEditor.ImageData;
+import org.junit.jupiter.api.Test;
+
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EditHistoryTest {
+    static Logger logger = Logger.getLogger(EditHistoryTest.class.getName());
+
+    @Test
+    public void placeAndRemoveAreUndoneAndRedoneTest() {
+        CanvasData canvasData = new CanvasData();
+        EditHistory history = new EditHistory(EditHistory.DEFAULT_CAPACITY);
+        canvasData.addImage(new ImageData("floor1.png", 64, 64, 64, 64));
+        history.place(canvasData, new ImageData("wall1.png", 64, 64, 64, 64));
+        history.remove(canvasData, 64, 64);
+
+        assertEquals("wall1.png", canvasData.getImagesList().get(0).getName());
+        assertEquals(new Rectangle2D(64, 64, 64, 64), history.undo(canvasData));
+        assertEquals(2, canvasData.getImagesList().size());
+        history.undo(canvasData);
+        assertEquals("floor1.png", canvasData.getImagesList().get(0).getName());
+        assertEquals(1, canvasData.getImagesList().size());
+        assertNull(history.undo(canvasData));
+
+        history.redo(canvasData);
+        history.redo(canvasData);
+        assertEquals(1, canvasData.getImagesList().size());
+        assertEquals("wall1.png", canvasData.getImagesList().get(0).getName());
+        assertFalse(history.canRedo());
+    }
+
+    @Test
+    public void strokeIsOneCommandTest() {
+        CanvasData canvasData = new CanvasData();
+        EditHistory history = new EditHistory(EditHistory.DEFAULT_CAPACITY);
+
+        history.begin(EditHistory.PLACE);
+        for (int x = 0; x < 10 * 64; x += 64) {
+            history.place(canvasData, new ImageData("wall1.png", x, 128, 64, 64));
+        }
+        history.end();
+
+        assertEquals(1, history.getCommands());
+        assertEquals(new Rectangle2D(0, 128, 640, 64), history.undo(canvasData));
+        assertTrue(canvasData.getImagesList().isEmpty());
+    }
+
+    @Test
+    public void newEditForgetsUndoneCommandsTest() {
+        CanvasData canvasData = new CanvasData();
+        EditHistory history = new EditHistory(EditHistory.DEFAULT_CAPACITY);
+        history.place(canvasData, new ImageData("wall1.png", 0, 0, 64, 64));
+        history.place(canvasData, new ImageData("wall1.png", 64, 0, 64, 64));
+        history.undo(canvasData);
+
+        history.place(canvasData, new ImageData("floor1.png", 128, 0, 64, 64));
+
+        assertEquals(2, history.getCommands());
+        assertFalse(history.canRedo());
+        history.undo(canvasData);
+        history.undo(canvasData);
+        assertTrue(canvasData.getImagesList().isEmpty());
+    }
+
+    @Test
+    public void oldestCommandsAreForgottenTest() {
+        CanvasData canvasData = new CanvasData();
+        EditHistory history = new EditHistory(1000);
+
+        for (int i = 0; i < 1000; i++) {
+            history.place(canvasData, new ImageData("wall1.png", i * 64, 0, 64, 64));
+        }
+
+        assertTrue(history.getSize() <= history.getCapacity());
+        assertTrue(history.getCommands() > 100);
+        while (history.canUndo()) {
+            history.undo(canvasData);
+        }
+        assertEquals(1000 - history.getCommands(), canvasData.getImagesList().size());
+        assertEquals(0, canvasData.getImagesList().get(0).getX());
+    }
+
+    @Test
+    public void bulkFillIsUndoneAndRedoneQuicklyTest() {
+        CanvasData canvasData = new CanvasData();
+        EditHistory history = new EditHistory(EditHistory.DEFAULT_CAPACITY);
+        for (int i = 0; i < 100_000; i++) {
+            canvasData.addImage(new ImageData("floor1.png", i % 400 * 64, i / 400 * 64, 64, 64));
+        }
+        history.begin(EditHistory.FILL);
+        for (int i = 0; i < 100_000; i++) {
+            history.place(canvasData, new ImageData("wall1.png", i % 400 * 64, i / 400 * 64, 64, 64));
+        }
+        history.end();
+
+        long start = System.nanoTime();
+        Rectangle2D undone = history.undo(canvasData);
+        assertEquals(100_000, canvasData.getImagesList().size());
+        Rectangle2D redone = history.redo(canvasData);
+        assertEquals(200_000, canvasData.getImagesList().size());
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        logger.info("Undo and redo of " + 100_000 + " images: " + millis + " ms, history of "
+                + history.getSize() * 4 / 1024 + " KB");
+        assertEquals(new Rectangle2D(0, 0, 400 * 64, 250 * 64), undone);
+        assertEquals(undone, redone);
+        assertEquals("wall1.png", canvasData.getImagesIn(0, 0, 64, 64).get(1).getName());
+        // The fill is one command of four ints per image, undo and redo walk it once without per-image objects
+        assertEquals(1, history.getCommands());
+        assertEquals(2 + 4 * 100_000, history.getSize());
+    }
+}
@@ -0,0 +1,40 @@
+package org.example;
+
+import org.game.thegreatescape.model.GameClock;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class GameClockTest {
+
+    @Test
+    public void ticksDoNotDependOnFrameRateTest() {
+        GameClock slow = new GameClock();
+        GameClock fast = new GameClock();
+        int slowTicks = 0;
+        int fastTicks = 0;
+
+        for (long t = 0; t <= 2_000_000_000L; t += 1_000_000_000L / 30) {
+            slowTicks += slow.advance(t);
+        }
+        for (long t = 0; t <= 2_000_000_000L; t += 1_000_000_000L / 240) {
+            fastTicks += fast.advance(t);
+        }
+
+        assertEquals(2 * GameClock.TICKS_PER_SECOND, slowTicks, 1);
+        assertEquals(2 * GameClock.TICKS_PER_SECOND, fastTicks, 1);
+        assertEquals(GameClock.TICKS_PER_SECOND, fast.getTicksPerSecond(), 1);
+        assertEquals(240, fast.getFramesPerSecond(), 2);
+    }
+
+    @Test
+    public void longStallIsNotCaughtUpTest() {
+        GameClock clock = new GameClock();
+        clock.advance(0);
+
+        int ticks = clock.advance(5_000_000_000L);
+
+        assertEquals(12, ticks);
+        assertEquals(1.0, clock.getAlpha(), 1e-9);
+    }
+}
@@ -0,0 +1,71 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.game.thegreatescape.model.Coord;
+import org.game.thegreatescape.model.GameData;
+import org.game.thegreatescape.model.GameItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameItemTest {
+
+    @Test
+    public void packedCoordsTest() {
+        GameItem item = new GameItem();
+        item.setCoords(new Coord[]{new Coord(64, 128), new Coord(-64, 0)});
+
+        assertEquals(2, item.coordCount());
+        assertEquals(64, item.x(0));
+        assertEquals(128, item.y(0));
+        assertEquals(-64, item.x(1));
+        assertEquals(0, item.y(1));
+        assertArrayEquals(new int[]{64, 128, -64, 0}, item.packedCoords());
+
+        Coord[] coords = item.getCoords();
+        coords[0].x = 1;
+        assertEquals(64, item.x(0));
+    }
+
+    @Test
+    public void noCoordsTest() {
+        GameItem item = new GameItem();
+
+        assertEquals(0, item.coordCount());
+        assertNull(item.getCoords());
+        assertThrows(IllegalArgumentException.class, () -> item.setPackedCoords(new int[]{1, 2, 3}));
+    }
+
+    @Test
+    public void jsonRoundTripTest() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (String level : new String[]{"firstLevel", "secondLevel", "thirdLevel", "fourthLevel"}) {
+            JsonNode original = objectMapper.readTree(new File(level + ".json")).get("tiles");
+
+            GameData gameData = objectMapper.readValue(new File(level + ".json"), GameData.class);
+            JsonNode written = objectMapper.valueToTree(gameData).get("tiles");
+
+            assertEquals(original.size(), written.size(), level);
+            Iterator<Map.Entry<String, JsonNode>> tiles = original.fields();
+            while (tiles.hasNext()) {
+                Map.Entry<String, JsonNode> tile = tiles.next();
+                JsonNode originalCoords = tile.getValue().get("coords");
+                JsonNode writtenCoords = written.get(tile.getKey()).get("coords");
+                assertEquals(originalCoords.size(), writtenCoords.size(), tile.getKey());
+                for (int i = 0; i < originalCoords.size(); i++) {
+                    assertEquals(originalCoords.get(i).get("x").asInt(), writtenCoords.get(i).get("x").asInt());
+                    assertEquals(originalCoords.get(i).get("y").asInt(), writtenCoords.get(i).get("y").asInt());
+                }
+                assertEquals(tile.getValue().get("fileName"), written.get(tile.getKey()).get("fileName"));
+            }
+            assertEquals(objectMapper.writeValueAsString(gameData),
+                    objectMapper.writeValueAsString(objectMapper.treeToValue(objectMapper.valueToTree(gameData), GameData.class)));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.example;
+
+import org.game.thegreatescape.model.HeadlessRunner;
+import org.game.thegreatescape.model.Model;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HeadlessRunnerTest {
+
+    @Test
+    public void scriptMovesPlayerWithoutToolkitTest() throws IOException {
+        Model model = new Model(1);
+        HeadlessRunner runner = new HeadlessRunner(model);
+        int startX = model.getPlayer().getCharacterX();
+
+        runner.run(new StringReader("# comment\nUP 8\n\nLEFT 4\nWAIT 10\n"));
+
+        assertEquals(22, runner.getTicks());
+        assertEquals(236, model.getPlayer().getCharacterY());
+        assertEquals(startX - 10, model.getPlayer().getCharacterX());
+        assertEquals(0, model.getPlayer().getAnimationPhase());
+    }
+
+    @Test
+    public void levelCommandStartsNewGameTest() throws IOException {
+        HeadlessRunner runner = new HeadlessRunner(new Model(1));
+
+        runner.run(new StringReader("LEVEL 2\n"));
+
+        assertEquals("secondLevel", runner.getModel().getLevel());
+    }
+
+    @Test
+    public void unknownCommandTest() {
+        HeadlessRunner runner = new HeadlessRunner(new Model(1));
+
+        assertThrows(IllegalArgumentException.class, () -> runner.run(new StringReader("JUMP 3\n")));
+    }
+
+    @Test
+    public void levelOutOfRangeReportsLineTest() {
+        HeadlessRunner runner = new HeadlessRunner(new Model(1));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> runner.run(new StringReader("UP 4\nLEVEL 9\n")));
+        assertTrue(e.getMessage().startsWith("Line 2: "));
+        assertThrows(IllegalArgumentException.class, () -> runner.run(new StringReader("LEVEL 0\n")));
+        assertEquals("firstLevel", runner.getModel().getLevel());
+    }
+}
@@ -0,0 +1,172 @@
+package org.example;
+
+import org.game.thegreatescape.model.Journal;
+import org.game.thegreatescape.model.LevelRepository;
+import org.game.thegreatescape.model.Model;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournalTest {
+    static Logger logger = Logger.getLogger(JournalTest.class.getName());
+
+    @Test
+    public void gameIsRecoveredAfterCrashTest() throws IOException {
+        Path saveFile = Files.createTempDirectory("journal").resolve("saveGame.json");
+        LevelRepository repository = new LevelRepository(LevelRepository.DEFAULT_CAPACITY);
+        Model model = new Model(2, repository, saveFile);
+        model.startJournal();
+
+        model.openDoors("secondLevel");
+        model.putInInventory("secondLevel");
+        model.goDown();
+        model.update();
+        model.getJournal().flush();
+        // The game crashes here, the journal is not closed
+
+        assertFalse(Files.exists(saveFile));
+        Model recovered = Model.recover(saveFile, repository);
+        assertEquals("OpenedDoor.png", recovered.getItemFromGD("secondLevel", "DoorToThirdLevel").fileName);
+        assertTrue(recovered.getPlayer().getInventory().contains(1));
+        assertEquals("secondLevel", recovered.getLevel());
+        assertEquals(model.getPlayer().getCharacterX(), recovered.getPlayer().getCharacterX());
+        assertEquals(model.getPlayer().getCharacterY(), recovered.getPlayer().getCharacterY());
+    }
+
+    @Test
+    public void puzzleStateIsRecoveredTest() throws IOException {
+        Path saveFile = Files.createTempDirectory("journal").resolve("saveGame.json");
+        LevelRepository repository = new LevelRepository(LevelRepository.DEFAULT_CAPACITY);
+        Model model = new Model(2, repository, saveFile);
+        model.startJournal();
+        String sequence = model.getRandomSequence();
+        for (String button : sequence.substring(1, sequence.length() - 1).split(", ")) {
+            model.checkButton(Integer.parseInt(button));
+        }
+        model.update();
+        model.startChestTimer();
+        model.checkButton(1);
+        model.getJournal().flush();
+
+        Model recovered = Model.recover(saveFile, repository);
+        assertTrue(recovered.isClosePanel());
+        assertNull(recovered.getRandomSequence());
+        assertEquals(model.captureSave().buttonSequence, recovered.captureSave().buttonSequence);
+        assertTrue(recovered.getChestTimerRemainingMillis() > (Model.CHEST_TIMER_SECONDS - 5) * 1000L);
+    }
+
+    @Test
+    public void journalIsCompactedTest() throws IOException {
+        Path saveFile = Files.createTempDirectory("journal").resolve("saveGame.json");
+        LevelRepository repository = new LevelRepository(LevelRepository.DEFAULT_CAPACITY);
+        Model model = new Model(2, repository, saveFile);
+        model.startJournal();
+        long generation = model.getJournal().getGeneration();
+        model.openDoors("secondLevel");
+        assertTrue(model.getJournal().getSize() > Journal.HEADER_SIZE);
+
+        model.compactJournal().join();
+
+        assertEquals(Journal.HEADER_SIZE, model.getJournal().getSize());
+        assertEquals(generation + 1, model.getJournal().getGeneration());
+        Model recovered = Model.recover(saveFile, repository);
+        assertEquals("OpenedDoor.png", recovered.getItemFromGD("secondLevel", "DoorToThirdLevel").fileName);
+    }
+
+    @Test
+    public void savedGameIsNotChangedByJournalTest() throws IOException {
+        Path saveFile = Files.createTempDirectory("journal").resolve("saveGame.json");
+        LevelRepository repository = new LevelRepository(LevelRepository.DEFAULT_CAPACITY);
+        new Model(3, repository, saveFile).saveGame();
+        byte[] saved = Files.readAllBytes(saveFile);
+
+        Model model = new Model(2, repository, saveFile);
+        model.startJournal();
+        model.openDoors("secondLevel");
+        assertArrayEquals(saved, Files.readAllBytes(saveFile));
+
+        model.stopJournal().join();
+        assertFalse(Files.exists(saveFile.resolveSibling(Model.JOURNAL_FILE)));
+        assertFalse(Files.exists(saveFile.resolveSibling(Model.RECOVERY_FILE)));
+        assertEquals("thirdLevel", Model.recover(saveFile, repository).getLevel());
+    }
+
+    @Test
+    public void journalOfOtherGenerationIsNotReplayedTest() throws IOException {
+        Path saveFile = Files.createTempDirectory("journal").resolve("saveGame.json");
+        LevelRepository repository = new LevelRepository(LevelRepository.DEFAULT_CAPACITY);
+        Model model = new Model(2, repository, saveFile);
+        model.startJournal();
+        model.openDoors("secondLevel");
+        model.getJournal().flush();
+
+        Model other = new Model(2, repository);
+        assertEquals(0, Journal.replay(saveFile.resolveSibling(Model.JOURNAL_FILE), 99, Journal.HEADER_SIZE, other));
+        assertEquals(1, Journal.replay(saveFile.resolveSibling(Model.JOURNAL_FILE), 1, Journal.HEADER_SIZE, other));
+    }
+
+    @Test
+    public void compactedJournalKeepsLaterEventsTest() throws IOException {
+        Path path = Files.createTempDirectory("journal").resolve("saveGame.journal");
+        Journal journal = Journal.create(path, 1);
+        journal.append(Journal.OPEN_DOORS, "secondLevel");
+        long offset = journal.getSize();
+        journal.append(Journal.OPEN_CHESTS, "thirdLevel");
+
+        journal.compact(2, offset);
+        journal.appendPosition(100, 200);
+        journal.close();
+
+        Model model = new Model(3, new LevelRepository(LevelRepository.DEFAULT_CAPACITY));
+        assertEquals(2, journal.getGeneration());
+        assertEquals(2, Journal.replay(path, 1, offset, model));
+        assertEquals("ClosedDoor.png", model.getItemFromGD("secondLevel", "DoorToThirdLevel").fileName);
+        assertEquals("ChestWithKey.png", model.getItemFromGD("thirdLevel", "Chest").fileName);
+        assertEquals(100, model.getPlayer().getCharacterX());
+        assertEquals(200, model.getPlayer().getCharacterY());
+    }
+
+    @Test
+    public void incompleteEventIsIgnoredTest() throws IOException {
+        Path path = Files.createTempDirectory("journal").resolve("saveGame.journal");
+        Journal journal = Journal.create(path, 1);
+        journal.append(Journal.OPEN_DOORS, "secondLevel");
+        journal.append(Journal.OPEN_CHESTS, "secondLevel");
+        journal.close();
+        try (var channel = Files.newByteChannel(path, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) - 3);
+        }
+
+        Model model = new Model(2, new LevelRepository(LevelRepository.DEFAULT_CAPACITY));
+        assertEquals(1, Journal.replay(path, 1, Journal.HEADER_SIZE, model));
+        assertEquals("OpenedDoor.png", model.getItemFromGD("secondLevel", "DoorToThirdLevel").fileName);
+    }
+
+    @Test
+    public void positionsAreBufferedAndStatesWrittenTest() throws IOException {
+        Path path = Files.createTempDirectory("journal").resolve("saveGame.journal");
+        Journal positions = Journal.create(path, 1);
+        for (int i = 0; i < 100_000; i++) {
+            positions.appendPosition(i, -i);
+        }
+        positions.close();
+        Journal states = Journal.create(path, 2);
+        for (int i = 0; i < 1_000; i++) {
+            states.append(Journal.OPEN_DOORS, "secondLevel");
+        }
+        states.close();
+
+        logger.info("Journal append: " + positions.getAverageAppendNanos() + " ns buffered, "
+                + states.getAverageAppendNanos() + " ns written");
+        assertEquals(100_000, positions.getEvents());
+        // Movements are written a full buffer at a time, changes of items are written one by one
+        assertTrue(positions.getWrites() < positions.getEvents() / 100);
+        assertEquals(1_000, states.getWrites());
+    }
+}
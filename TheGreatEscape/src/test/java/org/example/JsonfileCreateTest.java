@@ -0,0 +1,111 @@
+package org.example;
+
+import org.game.thegreatescape.levelEditor.CanvasData;
+import org.game.thegreatescape.levelEditor.ImageData;
+import org.game.thegreatescape.levelEditor.JsonfileCreate;
+import org.game.thegreatescape.model.GameData;
+import org.game.thegreatescape.model.GameItem;
+import org.game.thegreatescape.model.LevelParser;
+import org.game.thegreatescape.model.LevelRepository;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonfileCreateTest {
+    static Logger logger = Logger.getLogger(JsonfileCreateTest.class.getName());
+
+    @Test
+    public void exportedLevelCanBeLoadedTest() throws IOException {
+        JsonfileCreate jfc = new JsonfileCreate();
+        jfc.learnTileTypes(new LevelRepository(LevelRepository.DEFAULT_CAPACITY).preload("firstLevel"));
+        List<ImageData> images = List.of(
+                new ImageData("wall1.png", 0, 0, 64, 64),
+                new ImageData("floor1.png", 64, 0, 64, 64),
+                new ImageData("wall1.png", 128, 64, 64, 64));
+        Path path = Files.createTempFile("level", ".json");
+        path.toFile().deleteOnExit();
+
+        jfc.export(images, path);
+        GameData level = LevelParser.readLevel(path.toFile());
+
+        assertEquals(2, level.tiles.size());
+        assertEquals(2, level.tiles.get("wall1").coordCount());
+        assertEquals(128, level.tiles.get("wall1").x(1));
+        assertTrue(level.tiles.get("wall1").isCollision);
+        assertFalse(level.tiles.get("floor1").isCollision);
+    }
+
+    @Test
+    public void exportsDoNotShareContentTest() throws IOException {
+        JsonfileCreate jfc = new JsonfileCreate();
+        String first = jfc.toString(List.of(new ImageData("wall.png", 0, 0, 64, 64)));
+        String second = jfc.toString(List.of(new ImageData("floor.png", 0, 0, 64, 64)));
+
+        assertFalse(second.contains("wall"));
+        GameData level = LevelParser.readLevel(new ByteArrayInputStream(second.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(1, level.tiles.size());
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    public void largeLevelIsExportedTest() throws IOException {
+        JsonfileCreate jfc = new JsonfileCreate();
+        List<ImageData> images = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            images.add(new ImageData("tile" + (i % 50) + ".png", (i % 1000) * 64, (i / 1000) * 64, 64, 64));
+        }
+        Path path = Files.createTempFile("level", ".json");
+        path.toFile().deleteOnExit();
+
+        long start = System.nanoTime();
+        jfc.export(images, path);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        logger.info("Export of " + images.size() + " images: " + millis + " ms, " + Files.size(path) + " bytes");
+        GameData level = LevelParser.readLevel(path.toFile());
+        assertEquals(50, level.tiles.size());
+        // Every image is written once as a coordinate of its item, the file grows linearly with the images
+        assertEquals(images.size(), level.tiles.values().stream().mapToInt(GameItem::coordCount).sum());
+        assertTrue(Files.size(path) < images.size() * 32L);
+    }
+
+    @Test
+    public void openedLevelIsWrittenBackUnchangedTest() throws IOException {
+        for (String name : List.of("firstLevel", "secondLevel", "thirdLevel", "fourthLevel")) {
+            GameData original = LevelParser.readLevel(new File(name + ".json"));
+            CanvasData canvasData = new CanvasData();
+            canvasData.addLevel(original);
+            Path path = Files.createTempFile(name, ".json");
+            path.toFile().deleteOnExit();
+
+            new JsonfileCreate().export(canvasData.getImagesList(), path);
+            GameData written = LevelParser.readLevel(path.toFile());
+
+            assertEquals(List.copyOf(original.tiles.keySet()), List.copyOf(written.tiles.keySet()));
+            for (String key : original.tiles.keySet()) {
+                GameItem expected = original.tiles.get(key);
+                GameItem actual = written.tiles.get(key);
+                assertEquals(expected.fileName, actual.fileName, key);
+                assertEquals(expected.isCollision, actual.isCollision, key);
+                assertEquals(expected.isTouchable, actual.isTouchable, key);
+                assertEquals(expected.isDoorToTheNextLevel, actual.isDoorToTheNextLevel, key);
+                assertEquals(expected.nextLevel, actual.nextLevel, key);
+                assertEquals(expected.nextX, actual.nextX, key);
+                assertEquals(expected.nextY, actual.nextY, key);
+                assertEquals(expected.isTheEnd, actual.isTheEnd, key);
+                assertArrayEquals(expected.packedCoords(), actual.packedCoords(), key);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.game.thegreatescape.model.Coord;
+import org.game.thegreatescape.model.GameData;
+import org.game.thegreatescape.model.GameItem;
+import org.game.thegreatescape.model.LevelFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the binary level format and compares it with the JSON levels read by Jackson.
+ */
+public class LevelFileTest {
+    static Logger logger = Logger.getLogger(LevelFileTest.class.getName());
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static GameData generatedLevel(int size) {
+        String[] files = {"floor1.png", "floor2.png", "wall1.png", "wall2.png", "wall3.png"};
+        GameData gameData = new GameData();
+        Random random = new Random(42);
+        Coord[][] coords = new Coord[files.length][size * size];
+        int[] counts = new int[files.length];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int k = random.nextInt(files.length);
+                coords[k][counts[k]++] = new Coord(i * 64, j * 64);
+            }
+        }
+        for (int k = 0; k < files.length; k++) {
+            GameItem item = new GameItem();
+            item.fileName = files[k];
+            item.width = 64;
+            item.height = 64;
+            item.isCollision = k >= 2;
+            item.setCoords(java.util.Arrays.copyOf(coords[k], counts[k]));
+            gameData.tiles.put(files[k].replace(".png", ""), item);
+        }
+        return gameData;
+    }
+
+    @Test
+    public void shippedLevelsRoundTripTest() throws IOException {
+        for (String level : new String[]{"firstLevel", "secondLevel", "thirdLevel", "fourthLevel"}) {
+            GameData json = objectMapper.readValue(new File(level + ".json"), GameData.class);
+
+            GameData binary = LevelFile.read(LevelFile.toBytes(json));
+
+            assertEquals(objectMapper.writeValueAsString(json), objectMapper.writeValueAsString(binary), level);
+        }
+    }
+
+    @Test
+    public void mappedFileRoundTripTest() throws IOException {
+        GameData gameData = generatedLevel(20);
+        gameData.tiles.get("wall1").isDoorToTheNextLevel = true;
+        gameData.tiles.get("wall1").nextLevel = "secondLevel";
+        gameData.tiles.get("wall1").nextX = -32;
+        gameData.tiles.get("floor2").isTouchable = true;
+        gameData.tiles.get("wall3").isTheEnd = true;
+        gameData.START_POSITION_PLAYERX = 128;
+        Path path = Files.createTempFile("level", LevelFile.EXTENSION);
+        try {
+            LevelFile.write(gameData, path);
+
+            GameData read = LevelFile.read(path);
+
+            assertEquals(objectMapper.writeValueAsString(gameData), objectMapper.writeValueAsString(read));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void coordinateOutOfRangeTest() {
+        GameData gameData = generatedLevel(1);
+        gameData.tiles.values().iterator().next().packedCoords()[0] = 40_000;
+
+        assertThrows(IOException.class, () -> LevelFile.toBytes(gameData));
+    }
+
+    @Test
+    public void notALevelFileTest() {
+        assertThrows(IOException.class, () -> LevelFile.read(java.nio.ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6})));
+    }
+
+    @Test
+    public void sizeAndLoadTimeTest() throws IOException {
+        GameData gameData = generatedLevel(300);
+        Path jsonPath = Files.createTempFile("level", ".json");
+        Path binaryPath = Files.createTempFile("level", LevelFile.EXTENSION);
+        try {
+            objectMapper.writeValue(jsonPath.toFile(), gameData);
+            LevelFile.write(gameData, binaryPath);
+            long jsonSize = Files.size(jsonPath);
+            long binarySize = Files.size(binaryPath);
+
+            long jsonTime = Long.MAX_VALUE;
+            long binaryTime = Long.MAX_VALUE;
+            for (int i = 0; i < 10; i++) {
+                long start = System.nanoTime();
+                objectMapper.readValue(jsonPath.toFile(), GameData.class);
+                jsonTime = Math.min(jsonTime, System.nanoTime() - start);
+                start = System.nanoTime();
+                LevelFile.read(binaryPath);
+                binaryTime = Math.min(binaryTime, System.nanoTime() - start);
+            }
+
+            logger.info(String.format("300x300 level: JSON %d bytes in %.2f ms, binary %d bytes in %.2f ms",
+                    jsonSize, jsonTime / 1e6, binarySize, binaryTime / 1e6));
+            assertTrue(binarySize * 5 < jsonSize);
+        } finally {
+            Files.delete(jsonPath);
+            Files.delete(binaryPath);
+        }
+    }
+}
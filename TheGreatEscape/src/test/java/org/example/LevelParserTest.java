@@ -0,0 +1,137 @@
+package org.example;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.management.ThreadMXBean;
+import org.game.thegreatescape.model.Coord;
+import org.game.thegreatescape.model.GameData;
+import org.game.thegreatescape.model.GameItem;
+import org.game.thegreatescape.model.LevelParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks the streaming level parser against Jackson's data binding and compares their time and allocation.
+ */
+public class LevelParserTest {
+    static Logger logger = Logger.getLogger(LevelParserTest.class.getName());
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static GameData generatedLevel(int size) {
+        Random random = new Random(42);
+        GameData gameData = new GameData();
+        for (int k = 0; k < 5; k++) {
+            GameItem item = new GameItem();
+            item.fileName = "tile" + k + ".png";
+            item.width = 64;
+            item.height = 64;
+            item.isCollision = k >= 2;
+            Coord[] coords = new Coord[size * size / 5];
+            for (int i = 0; i < coords.length; i++) {
+                coords[i] = new Coord(random.nextInt(size) * 64, random.nextInt(size) * 64);
+            }
+            item.setCoords(coords);
+            gameData.tiles.put("tile" + k, item);
+        }
+        return gameData;
+    }
+
+    @Test
+    public void shippedLevelsMatchDataBindingTest() throws IOException {
+        for (String level : new String[]{"firstLevel", "secondLevel", "thirdLevel", "fourthLevel"}) {
+            GameData expected = objectMapper.readValue(new File(level + ".json"), GameData.class);
+
+            GameData parsed = LevelParser.readLevel(new File(level + ".json"));
+
+            assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(parsed), level);
+        }
+    }
+
+    @Test
+    public void savedGameMatchesDataBindingTest() throws IOException {
+        Map<String, GameData> expected = objectMapper.readValue(new File("saveGame.json"),
+                new TypeReference<HashMap<String, GameData>>() {});
+
+        Map<String, GameData> parsed = LevelParser.readLevels(new File("saveGame.json"));
+
+        assertEquals(expected.keySet(), parsed.keySet());
+        for (String level : expected.keySet()) {
+            assertEquals(objectMapper.writeValueAsString(expected.get(level)),
+                    objectMapper.writeValueAsString(parsed.get(level)), level);
+        }
+    }
+
+    @Test
+    public void unknownFieldsAndFloatsTest() throws IOException {
+        String json = "{\"comment\":{\"a\":[1,2]},\"tiles\":{\"wall\":{\"fileName\":\"wall1.png\",\"extra\":[{}],"
+                + "\"coords\":[{\"x\":64.0,\"y\":128.0,\"z\":1},{\"x\":0,\"y\":-64}],\"width\":64,\"isCollision\":true}},"
+                + "\"START_POSITION_PLAYERX\":100}";
+
+        GameData gameData = LevelParser.readLevel(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        GameItem wall = gameData.tiles.get("wall");
+        assertEquals("wall1.png", wall.fileName);
+        assertEquals(2, wall.coordCount());
+        assertEquals(64, wall.x(0));
+        assertEquals(128, wall.y(0));
+        assertEquals(-64, wall.y(1));
+        assertTrue(wall.isCollision);
+        assertEquals(100, gameData.START_POSITION_PLAYERX);
+        assertEquals(256, gameData.START_POSITION_PLAYERY);
+    }
+
+    @Test
+    public void notALevelTest() {
+        assertThrows(IOException.class,
+                () -> LevelParser.readLevel(new ByteArrayInputStream("[1,2]".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void timeAndAllocationTest() throws IOException {
+        ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled());
+        long threadId = Thread.currentThread().threadId();
+        File file = File.createTempFile("level", ".json");
+        try {
+            objectMapper.writeValue(file, generatedLevel(300));
+            byte[] bytes = Files.readAllBytes(file.toPath());
+
+            long bindingTime = Long.MAX_VALUE;
+            long streamingTime = Long.MAX_VALUE;
+            long bindingBytes = 0;
+            long streamingBytes = 0;
+            for (int i = 0; i < 10; i++) {
+                long allocated = threadMXBean.getThreadAllocatedBytes(threadId);
+                long start = System.nanoTime();
+                objectMapper.readValue(bytes, GameData.class);
+                bindingTime = Math.min(bindingTime, System.nanoTime() - start);
+                bindingBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocated;
+
+                allocated = threadMXBean.getThreadAllocatedBytes(threadId);
+                start = System.nanoTime();
+                LevelParser.readLevel(new ByteArrayInputStream(bytes));
+                streamingTime = Math.min(streamingTime, System.nanoTime() - start);
+                streamingBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocated;
+            }
+
+            logger.info(String.format("300x300 level: data binding %.2f ms %d KB, streaming %.2f ms %d KB",
+                    bindingTime / 1e6, bindingBytes / 1024, streamingTime / 1e6, streamingBytes / 1024));
+            assertTrue(streamingBytes < bindingBytes);
+        } finally {
+            file.delete();
+        }
+    }
+}
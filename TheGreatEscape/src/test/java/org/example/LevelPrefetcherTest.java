@@ -0,0 +1,67 @@
+package org.example;
+
+import org.game.thegreatescape.model.LevelPrefetcher;
+import org.game.thegreatescape.model.LevelRepository;
+import org.game.thegreatescape.model.Model;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LevelPrefetcherTest {
+
+    private static void awaitReady(LevelPrefetcher prefetcher, String levelName) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!prefetcher.isReady(levelName) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void walkingToDoorPrefetchesNextLevelTest() throws InterruptedException {
+        LevelRepository repository = new LevelRepository(LevelRepository.DEFAULT_CAPACITY);
+        Model model = new Model(1, repository);
+        AtomicInteger warmed = new AtomicInteger();
+        model.getPrefetcher().setAssetWarmer(level -> warmed.addAndGet(level.tiles.size()));
+
+        for (int i = 0; i < 10; i++) {
+            model.goDown();
+        }
+        // Walk until the door to the second level is less than two tiles away
+        for (int i = 0; i < 40; i++) {
+            model.goRight();
+            model.update();
+        }
+        awaitReady(model.getPrefetcher(), "secondLevel");
+        assertTrue(model.getPrefetcher().isReady("secondLevel"));
+        assertTrue(warmed.get() > 0);
+
+        for (int i = 40; i < 47; i++) {
+            model.goRight();
+        }
+        model.update();
+
+        assertEquals("secondLevel", model.getLevel());
+        assertEquals(1, model.getPrefetcher().getHits());
+        assertEquals(0, model.getPrefetcher().getMisses());
+        assertEquals(1.0, model.getPrefetcher().getHitRate());
+        assertEquals(1, repository.getHits());
+    }
+
+    @Test
+    public void levelNotEnteredIsWastedTest() throws InterruptedException {
+        LevelPrefetcher prefetcher = new LevelPrefetcher(new LevelRepository(LevelRepository.DEFAULT_CAPACITY));
+
+        prefetcher.prefetch("secondLevel");
+        prefetcher.prefetch("thirdLevel");
+        awaitReady(prefetcher, "secondLevel");
+        prefetcher.levelEntered("secondLevel");
+        prefetcher.levelEntered("fourthLevel");
+
+        assertEquals(1, prefetcher.getHits());
+        assertEquals(1, prefetcher.getMisses());
+        assertEquals(1, prefetcher.getWasted());
+        assertEquals(0.5, prefetcher.getHitRate());
+    }
+}
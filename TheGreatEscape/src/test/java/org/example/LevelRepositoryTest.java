@@ -0,0 +1,75 @@
+package org.example;
+
+import org.game.thegreatescape.model.GameData;
+import org.game.thegreatescape.model.GameItem;
+import org.game.thegreatescape.model.LevelRepository;
+import org.game.thegreatescape.model.Model;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LevelRepositoryTest {
+
+    @Test
+    public void newGameLoadsOnlyStartingLevelTest() {
+        LevelRepository repository = new LevelRepository(LevelRepository.DEFAULT_CAPACITY);
+
+        new Model(1, repository);
+
+        assertEquals(1, repository.size());
+        assertTrue(repository.isCached("firstLevel"));
+        assertFalse(repository.isCached("secondLevel"));
+    }
+
+    @Test
+    public void loadReturnsIndependentCopiesTest() {
+        LevelRepository repository = new LevelRepository(LevelRepository.DEFAULT_CAPACITY);
+
+        GameData first = repository.load("secondLevel");
+        GameData second = repository.load("secondLevel");
+        GameItem item = first.tiles.values().iterator().next();
+        item.fileName = "changed.png";
+        item.packedCoords()[0] = -1;
+
+        GameItem other = second.tiles.values().iterator().next();
+        assertNotEquals("changed.png", other.fileName);
+        assertNotEquals(-1, other.x(0));
+        assertEquals(1, repository.getMisses());
+        assertEquals(1, repository.getHits());
+    }
+
+    @Test
+    public void stateOfVisitedLevelIsKeptTest() {
+        LevelRepository repository = new LevelRepository(LevelRepository.DEFAULT_CAPACITY);
+        Model model = new Model(1, repository);
+
+        model.openDoors("secondLevel");
+
+        assertEquals("OpenedDoor.png", model.getItemFromGD("secondLevel", "DoorToThirdLevel").fileName);
+        assertTrue(new Model(2, repository).getGd().tiles.values().stream()
+                .noneMatch(item -> item.fileName.equals("OpenedDoor.png")));
+        assertTrue(model.getTileGrid("secondLevel").getEntryCount() > 0);
+    }
+
+    @Test
+    public void leastRecentlyUsedLevelIsEvictedTest() {
+        LevelRepository repository = new LevelRepository(2);
+
+        repository.preload("firstLevel");
+        repository.preload("secondLevel");
+        repository.preload("firstLevel");
+        repository.preload("thirdLevel");
+
+        assertTrue(repository.isCached("firstLevel"));
+        assertFalse(repository.isCached("secondLevel"));
+        assertTrue(repository.isCached("thirdLevel"));
+    }
+
+    @Test
+    public void missingLevelTest() {
+        LevelRepository repository = new LevelRepository(2);
+
+        assertNull(repository.load("noSuchLevel"));
+        assertEquals(0, repository.size());
+    }
+}
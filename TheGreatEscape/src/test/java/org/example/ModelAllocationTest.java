@@ -0,0 +1,49 @@
+package org.example;
+
+import com.sun.management.ThreadMXBean;
+import org.game.thegreatescape.model.Model;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class ModelAllocationTest {
+
+    private static void step(Model model, int i) {
+        model.update();
+        if (i % 2 == 0) {
+            model.goRight();
+            model.goDown();
+        } else {
+            model.goLeft();
+            model.goUp();
+        }
+    }
+
+    @Test
+    public void updateAndMovementAllocateNothingTest() {
+        ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled());
+        long threadId = Thread.currentThread().threadId();
+        Model model = new Model(1);
+
+        // Warm up until the JIT compiled the hot paths
+        for (int i = 0; i < 200_000; i++) {
+            step(model, i);
+        }
+
+        // Allocation of the measurement itself
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        long overhead = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+        before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10_000; i++) {
+            step(model, i);
+        }
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before - overhead;
+
+        assertEquals(0, allocated);
+    }
+}
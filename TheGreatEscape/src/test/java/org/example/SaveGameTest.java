@@ -0,0 +1,124 @@
+package org.example;
+
+import org.game.thegreatescape.model.GameData;
+import org.game.thegreatescape.model.LevelRepository;
+import org.game.thegreatescape.model.Model;
+import org.game.thegreatescape.model.SaveGame;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SaveGameTest {
+
+    @Test
+    public void onlyChangedItemsAreSavedTest() throws IOException {
+        LevelRepository repository = new LevelRepository(LevelRepository.DEFAULT_CAPACITY);
+        Model model = new Model(2, repository);
+        model.openDoors("secondLevel");
+
+        SaveGame save = SaveGame.capture("secondLevel", 300, 200, Map.of("secondLevel", model.getGd()), repository);
+
+        SaveGame.LevelDiff diff = save.levels.get("secondLevel");
+        assertEquals(1, diff.items.size());
+        assertEquals("OpenedDoor.png", diff.items.get("DoorToThirdLevel").fileName);
+        assertEquals(repository.getVersion("secondLevel"), diff.base);
+    }
+
+    @Test
+    public void savedGameIsRestoredTest() throws IOException {
+        LevelRepository repository = new LevelRepository(LevelRepository.DEFAULT_CAPACITY);
+        Model model = new Model(2, repository);
+        model.openDoors("secondLevel");
+        boolean collision = model.getItemFromGD("secondLevel", "DoorToThirdLevel").isCollision;
+        File file = Files.createTempFile("saveGame", ".json").toFile();
+        file.deleteOnExit();
+
+        SaveGame.capture("secondLevel", 300, 200, Map.of("secondLevel", model.getGd()), repository).write(file);
+        assertTrue(SaveGame.isSaveGame(file));
+        SaveGame read = SaveGame.read(file);
+        Map<String, GameData> restored = read.restore(repository);
+
+        assertEquals("secondLevel", read.level);
+        assertEquals(300, read.playerX);
+        assertEquals(200, read.playerY);
+        assertEquals("OpenedDoor.png", restored.get("secondLevel").tiles.get("DoorToThirdLevel").fileName);
+        assertEquals(collision, restored.get("secondLevel").tiles.get("DoorToThirdLevel").isCollision);
+        assertNotEquals("OpenedDoor.png", repository.load("secondLevel").tiles.get("DoorToThirdLevel").fileName);
+    }
+
+    @Test
+    public void saveSizeDoesNotDependOnLevelSizeTest() throws IOException {
+        LevelRepository repository = new LevelRepository(LevelRepository.DEFAULT_CAPACITY);
+        Model model = new Model(2, repository);
+        File file = Files.createTempFile("saveGame", ".json").toFile();
+        file.deleteOnExit();
+
+        SaveGame.capture("secondLevel", 300, 200, Map.of("secondLevel", model.getGd()), repository).write(file);
+
+        assertTrue(file.length() < 512, "Saved game has " + file.length() + " bytes");
+    }
+
+    @Test
+    public void legacySavedGameIsDetectedTest() throws IOException {
+        assertFalse(SaveGame.isSaveGame(new File("saveGame.json")));
+    }
+
+    @Test
+    public void legacySavedGameIsMigratedTest() throws IOException {
+        LevelRepository repository = new LevelRepository(LevelRepository.DEFAULT_CAPACITY);
+
+        SaveGame legacy = SaveGame.read(new File("saveGame.json"));
+        Model model = new Model(Path.of("saveGame.json"), repository);
+
+        assertEquals(1, legacy.version);
+        assertEquals("firstLevel", legacy.level);
+        assertEquals(216, legacy.playerX);
+        assertEquals(266, legacy.playerY);
+        assertEquals(legacy.legacyLevels.keySet(), legacy.restore(repository).keySet());
+        assertEquals("firstLevel", model.getLevel());
+        assertEquals(216, model.getPlayer().getCharacterX());
+    }
+
+    @Test
+    public void inventoryAndPuzzleStateAreRestoredTest() throws IOException {
+        LevelRepository repository = new LevelRepository(LevelRepository.DEFAULT_CAPACITY);
+        Path saveFile = Files.createTempDirectory("save").resolve("saveGame.json");
+        Model model = new Model(2, repository, saveFile);
+        model.putInInventory("secondLevel");
+        model.checkButton(2);
+        model.startChestTimer();
+        model.saveGame();
+
+        Model loaded = new Model(saveFile, repository);
+
+        assertEquals(List.of(1), loaded.getPlayer().getInventory());
+        assertEquals(model.getRandomSequence(), loaded.getRandomSequence());
+        assertFalse(loaded.isClosePanel());
+        long remaining = loaded.getChestTimerRemainingMillis();
+        assertTrue(remaining > (Model.CHEST_TIMER_SECONDS - 5) * 1000L && remaining <= Model.CHEST_TIMER_SECONDS * 1000L);
+        SaveGame save = SaveGame.read(saveFile.toFile());
+        assertEquals(SaveGame.VERSION, save.version);
+        assertEquals(List.of(2), save.buttonSequence);
+    }
+
+    @Test
+    public void savedGameWithoutLevelStartsAtFirstLevelTest() throws IOException {
+        LevelRepository repository = new LevelRepository(LevelRepository.DEFAULT_CAPACITY);
+        Path saveFile = Files.createTempDirectory("save").resolve("saveGame.json");
+        Files.writeString(saveFile, "{}");
+
+        Model loaded = new Model(saveFile, repository);
+
+        GameData firstLevel = repository.preload("firstLevel");
+        assertEquals("firstLevel", loaded.getLevel());
+        assertEquals(firstLevel.START_POSITION_PLAYERX, loaded.getPlayer().getCharacterX());
+        assertEquals(firstLevel.START_POSITION_PLAYERY, loaded.getPlayer().getCharacterY());
+    }
+}
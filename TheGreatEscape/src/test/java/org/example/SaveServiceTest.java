@@ -0,0 +1,74 @@
+package org.example;
+
+import org.game.thegreatescape.model.LevelRepository;
+import org.game.thegreatescape.model.Model;
+import org.game.thegreatescape.model.SaveGame;
+import org.game.thegreatescape.model.SaveService;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SaveServiceTest {
+
+    private static SaveGame save(String level) {
+        LevelRepository repository = new LevelRepository(LevelRepository.DEFAULT_CAPACITY);
+        Model model = new Model(2, repository);
+        model.openDoors("secondLevel");
+        return SaveGame.capture(level, 300, 200, Map.of("secondLevel", model.getGd()), repository);
+    }
+
+    @Test
+    public void asyncSaveWritesFileAndReportsLatencyTest() throws Exception {
+        Path directory = Files.createTempDirectory("save");
+        SaveService service = new SaveService(directory.resolve("saveGame.json"));
+
+        CompletableFuture<Void> future = service.saveAsync(save("secondLevel"));
+        future.get(5, TimeUnit.SECONDS);
+
+        assertEquals("secondLevel", SaveGame.read(service.getPath().toFile()).level);
+        assertEquals(1, service.getSaves());
+        assertEquals(0, service.getFailures());
+        assertTrue(service.getLastLatencyNanos() > 0);
+        assertEquals(service.getLastLatencyNanos(), service.getAverageLatencyNanos());
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count(), "No temporary file is left behind");
+        }
+    }
+
+    @Test
+    public void saveReplacesPreviousSaveTest() throws IOException {
+        Path directory = Files.createTempDirectory("save");
+        SaveService service = new SaveService(directory.resolve("saveGame.json"));
+
+        service.save(save("secondLevel"));
+        service.save(save("thirdLevel"));
+
+        assertEquals("thirdLevel", SaveGame.read(service.getPath().toFile()).level);
+        assertEquals(2, service.getSaves());
+        assertTrue(service.getMaxLatencyNanos() >= service.getLastLatencyNanos());
+    }
+
+    @Test
+    public void failedSaveIsReportedTest() throws Exception {
+        Path directory = Files.createTempDirectory("save");
+        Path path = directory.resolve("saveGame.json");
+        SaveService service = new SaveService(path);
+        service.save(save("secondLevel"));
+        Files.delete(path);
+        Files.createDirectory(path); // A directory cannot be replaced by the saved game
+
+        CompletableFuture<Void> future = service.saveAsync(save("thirdLevel"));
+
+        assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertEquals(1, service.getFailures());
+        assertTrue(Files.isDirectory(path));
+    }
+}
@@ -0,0 +1,105 @@
+package org.example;
+
+import org.game.thegreatescape.model.Direction;
+import org.game.thegreatescape.model.Model;
+import org.game.thegreatescape.model.RenderSnapshot;
+import org.game.thegreatescape.model.Simulation;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationTest {
+
+    @Test
+    public void heldKeyMovesPlayerEveryFourTicksTest() {
+        Model model = new Model(1);
+        Simulation simulation = new Simulation(model);
+
+        simulation.setDirection(Direction.UP, true);
+        for (int i = 0; i < 8; i++) {
+            simulation.tick();
+        }
+
+        RenderSnapshot snapshot = simulation.getSnapshot();
+        assertEquals(8, snapshot.getTick());
+        assertEquals(236, snapshot.getPlayerY());
+        assertEquals(236, model.getPlayer().getCharacterY());
+    }
+
+    @Test
+    public void releasedKeyStopsPlayerTest() {
+        Model model = new Model(1);
+        Simulation simulation = new Simulation(model);
+
+        simulation.setDirection(Direction.UP, true);
+        simulation.tick();
+        simulation.setDirection(Direction.UP, false);
+        for (int i = 0; i < 8; i++) {
+            simulation.tick();
+        }
+
+        assertEquals(246, simulation.getSnapshot().getPlayerY());
+        assertEquals(0, model.getPlayer().getAnimationPhase());
+    }
+
+    @Test
+    public void commandsRunBeforeNextTickTest() {
+        Model model = new Model(1);
+        Simulation simulation = new Simulation(model);
+        RenderSnapshot first = simulation.getSnapshot();
+
+        simulation.submit(() -> model.getPlayer().getInventory().add(1));
+        simulation.submit(() -> model.getPlayer().getInventory().add(2));
+        assertFalse(first.isKeyIsReady());
+
+        simulation.tick();
+
+        assertTrue(simulation.getSnapshot().isKeyIsReady());
+        assertFalse(first.isKeyIsReady());
+    }
+
+    @Test
+    public void changedItemsArePublishedInNewImagesTest() {
+        Model model = new Model(2);
+        Simulation simulation = new Simulation(model);
+        String[] closed = simulation.getSnapshot().getTileImages();
+
+        simulation.submit(() -> model.openDoors("secondLevel"));
+        simulation.tick();
+        String[] opened = simulation.getSnapshot().getTileImages();
+        simulation.tick();
+
+        assertNotSame(closed, opened);
+        assertSame(opened, simulation.getSnapshot().getTileImages());
+        assertTrue(Arrays.asList(closed).contains("ClosedDoor.png"));
+        List<String> images = Arrays.asList(opened);
+        assertTrue(images.contains("OpenedDoor.png"));
+        assertFalse(images.contains("ClosedDoor.png"));
+        assertEquals(opened.length, simulation.getSnapshot().getTiles().getItemCount());
+    }
+
+    @Test
+    public void stepIsKeptForInterpolationUntilNextStepTest() {
+        Model model = new Model(1);
+        Simulation simulation = new Simulation(model);
+
+        simulation.setDirection(Direction.UP, true);
+        simulation.tick();
+        RenderSnapshot step = simulation.getSnapshot();
+        for (int i = 0; i < 3; i++) {
+            simulation.tick();
+            RenderSnapshot snapshot = simulation.getSnapshot();
+            assertEquals(step.getStepTime(), snapshot.getStepTime());
+            assertEquals(256, snapshot.getPreviousY());
+            assertEquals(246, snapshot.getPlayerY());
+        }
+        simulation.tick();
+
+        assertEquals(246, simulation.getSnapshot().getPreviousY());
+        assertEquals(236, simulation.getSnapshot().getPlayerY());
+        assertTrue(simulation.getSnapshot().getStepTime() > step.getStepTime());
+    }
+}
@@ -0,0 +1,66 @@
+package org.example;
+
+import org.game.thegreatescape.model.GameData;
+import org.game.thegreatescape.model.GameItem;
+import org.game.thegreatescape.model.TileGrid;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TileGridTest {
+
+    private static GameItem item(String fileName, int size, int... xy) {
+        GameItem item = new GameItem();
+        item.fileName = fileName;
+        item.width = size;
+        item.height = size;
+        item.setPackedCoords(xy);
+        return item;
+    }
+
+    @Test
+    public void queryReturnsOnlyTilesInsideViewportTest() {
+        GameData gameData = new GameData();
+        gameData.tiles.put("floor", item("floor1.png", 64, 0, 0, 64, 0, 640, 640));
+        gameData.tiles.put("portal", item("portal.png", 128, 1280, 1280));
+
+        TileGrid grid = new TileGrid(gameData);
+        int count = grid.query(0, 0, 100, 100);
+
+        assertEquals(2, count);
+        assertEquals(0, grid.getX(grid.getResults()[0]));
+        assertEquals(64, grid.getX(grid.getResults()[1]));
+        assertEquals(1408, grid.getWidth());
+        assertEquals(1408, grid.getHeight());
+    }
+
+    @Test
+    public void queryFindsLargeTileFromEveryCoveredCellOnceTest() {
+        GameData gameData = new GameData();
+        gameData.tiles.put("portal", item("portal.png", 128, 64, 64));
+
+        TileGrid grid = new TileGrid(gameData);
+
+        assertEquals(1, grid.query(150, 150, 10, 10));
+        assertEquals(1, grid.query(0, 0, 200, 200));
+        assertEquals(0, grid.query(200, 200, 10, 10));
+    }
+
+    @Test
+    public void copyHasOwnQueryStateTest() {
+        GameData gameData = new GameData();
+        gameData.tiles.put("floor", item("floor1.png", 64, 0, 0, 640, 640));
+        gameData.tiles.put("portal", item("portal.png", 128, 1280, 1280));
+
+        TileGrid grid = new TileGrid(gameData);
+        TileGrid copy = new TileGrid(grid);
+
+        assertEquals(1, grid.query(0, 0, 10, 10));
+        assertEquals(1, copy.query(1280, 1280, 10, 10));
+        assertEquals(0, grid.getX(grid.getResults()[0]));
+        assertEquals(1, copy.getItemIndex(copy.getResults()[0]));
+        assertEquals(128, copy.getEntryWidth(copy.getResults()[0]));
+        assertEquals(2, copy.getFirstEntry(1));
+        assertEquals(3, copy.getFirstEntry(2));
+    }
+}
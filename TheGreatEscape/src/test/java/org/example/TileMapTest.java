@@ -0,0 +1,149 @@
+package org.example;
+
+import org.game.thegreatescape.model.GameData;
+import org.game.thegreatescape.model.GameItem;
+import org.game.thegreatescape.model.LevelParser;
+import org.game.thegreatescape.model.LevelRepository;
+import org.game.thegreatescape.model.TileGrid;
+import org.game.thegreatescape.model.TileMap;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TileMapTest {
+
+    private static GameItem item(String fileName, int size, boolean collision, int... xy) {
+        GameItem item = new GameItem();
+        item.fileName = fileName;
+        item.width = size;
+        item.height = size;
+        item.isCollision = collision;
+        item.setPackedCoords(xy);
+        return item;
+    }
+
+    // Coordinates of the item as sorted "x,y" strings, the order within an item may change
+    private static List<String> coords(GameItem item) {
+        List<String> coords = new ArrayList<>();
+        for (int c = 0; c < item.coordCount(); c++) {
+            coords.add(item.x(c) + "," + item.y(c));
+        }
+        coords.sort(null);
+        return coords;
+    }
+
+    @Test
+    public void shippedLevelsRoundTripTest() throws IOException {
+        for (String level : new String[]{"firstLevel", "secondLevel", "thirdLevel", "fourthLevel"}) {
+            GameData original = LevelParser.readLevel(new File(level + ".json"));
+
+            GameData converted = original.toTileMap().toGameData();
+
+            assertEquals(new ArrayList<>(original.tiles.keySet()), new ArrayList<>(converted.tiles.keySet()), level);
+            for (String name : original.tiles.keySet()) {
+                GameItem expected = original.tiles.get(name);
+                GameItem actual = converted.tiles.get(name);
+                assertEquals(coords(expected), coords(actual), name);
+                assertEquals(expected.fileName, actual.fileName);
+                assertEquals(expected.width, actual.width);
+                assertEquals(expected.height, actual.height);
+                assertEquals(expected.isCollision, actual.isCollision);
+                assertEquals(expected.isTouchable, actual.isTouchable);
+                assertEquals(expected.isDoorToTheNextLevel, actual.isDoorToTheNextLevel);
+                assertEquals(expected.isTheEnd, actual.isTheEnd);
+                assertEquals(expected.nextLevel, actual.nextLevel);
+                assertEquals(expected.nextX, actual.nextX);
+                assertEquals(expected.nextY, actual.nextY);
+            }
+        }
+    }
+
+    @Test
+    public void cellLookupTest() {
+        GameData gameData = new GameData();
+        gameData.tiles.put("floor", item("floor1.png", 64, false, -64, 0, 0, 0, 64, 0));
+        gameData.tiles.put("wall", item("wall1.png", 64, true, 64, 64));
+        GameItem door = item("ClosedDoor.png", 64, true, 0, 0);
+        door.isDoorToTheNextLevel = true;
+        gameData.tiles.put("door", door);
+
+        TileMap tileMap = gameData.toTileMap();
+
+        assertEquals(-64, tileMap.getOriginX());
+        assertEquals(3, tileMap.getColumns());
+        assertEquals(2, tileMap.getRows());
+        assertEquals("floor1.png", tileMap.tileAt(TileMap.FLOOR, -1, 10).fileName);
+        assertEquals("ClosedDoor.png", tileMap.tileAt(TileMap.OBJECTS, 30, 30).fileName);
+        assertEquals("wall1.png", tileMap.getTile(TileMap.WALLS, 2, 1).fileName);
+        assertNull(tileMap.getTile(TileMap.WALLS, 0, 0));
+        assertNull(tileMap.getTile(TileMap.FLOOR, 5, 5));
+        assertTrue(tileMap.isCollision(1, 0));
+        assertFalse(tileMap.isCollision(0, 0));
+        assertEquals(0, tileMap.getFreeCount());
+    }
+
+    @Test
+    public void unalignedAndOverlappingTilesAreFreeTest() {
+        GameData gameData = new GameData();
+        gameData.tiles = new LinkedHashMap<>();
+        gameData.tiles.put("floor1", item("floor1.png", 64, false, 0, 0, 64, 0));
+        gameData.tiles.put("floor2", item("floor2.png", 64, false, 0, 0));
+        gameData.tiles.put("wall", item("wall1.png", 64, true, 8, 64));
+        gameData.tiles.put("panel", item("panel.png", 32, true, 64, 64));
+
+        TileMap tileMap = gameData.toTileMap();
+
+        assertEquals(3, tileMap.getFreeCount());
+        assertEquals("floor2.png", tileMap.getFreeTile(0).fileName);
+        assertEquals(8, tileMap.getFreeX(1));
+        assertEquals("panel.png", tileMap.getFreeTile(2).fileName);
+        assertArrayEquals(new int[]{0, 0}, tileMap.toGameData().tiles.get("floor2").packedCoords());
+        assertEquals(Arrays.asList("0,0", "64,0"), coords(tileMap.toGameData().tiles.get("floor1")));
+    }
+
+    @Test
+    public void freeTilesCollideInEveryCellTheyOverlapTest() {
+        GameData gameData = new GameData();
+        gameData.tiles = new LinkedHashMap<>();
+        gameData.tiles.put("floor", item("floor1.png", 64, false, 0, 0, 64, 0, 128, 0, 0, 64, 64, 64, 128, 64));
+        gameData.tiles.put("wall", item("wall1.png", 64, true, 40, 8));
+        gameData.tiles.put("panel", item("panel.png", 32, false, 136, 72));
+
+        TileMap tileMap = gameData.toTileMap();
+
+        assertEquals(2, tileMap.getFreeCount());
+        assertTrue(tileMap.isCollision(0, 0));
+        assertTrue(tileMap.isCollision(1, 0));
+        assertTrue(tileMap.isCollision(0, 1));
+        assertTrue(tileMap.isCollision(1, 1));
+        assertFalse(tileMap.isCollision(2, 0));
+        assertFalse(tileMap.isCollision(2, 1));
+        assertEquals(1, tileMap.getFreeCountAt(2, 1));
+        assertEquals(0, tileMap.getFreeCountAt(2, 0));
+    }
+
+    @Test
+    public void shippedLevelsCollideLikeTheirTilesTest() {
+        for (String name : List.of("firstLevel", "secondLevel", "thirdLevel", "fourthLevel")) {
+            GameData level = new LevelRepository(LevelRepository.DEFAULT_CAPACITY).preload(name);
+            TileMap tileMap = level.toTileMap();
+            TileGrid grid = new TileGrid(level);
+            for (int row = 0; row < tileMap.getRows(); row++) {
+                for (int col = 0; col < tileMap.getColumns(); col++) {
+                    int x = tileMap.getOriginX() + col * TileMap.CELL_SIZE;
+                    int y = tileMap.getOriginY() + row * TileMap.CELL_SIZE;
+                    // The grid counts touching edges, the inner pixels of the cell are compared
+                    assertEquals(grid.isCollision(x + 1, y + 1, TileMap.CELL_SIZE - 2, TileMap.CELL_SIZE - 2),
+                            tileMap.isCollision(col, row), name + " " + col + "," + row);
+                }
+            }
+        }
+    }
+}
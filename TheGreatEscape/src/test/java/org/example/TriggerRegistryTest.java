@@ -0,0 +1,56 @@
+package org.example;
+
+import org.game.thegreatescape.model.GameData;
+import org.game.thegreatescape.model.GameItem;
+import org.game.thegreatescape.model.TriggerRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TriggerRegistryTest {
+
+    private static GameItem item(String fileName, int x, int y) {
+        GameItem item = new GameItem();
+        item.fileName = fileName;
+        item.width = 64;
+        item.height = 64;
+        item.setPackedCoords(new int[]{x, y});
+        return item;
+    }
+
+    @Test
+    public void findOnlyReturnsTriggersOfTheKindTest() {
+        GameItem floor = item("floor1.png", 0, 0);
+        GameItem chest = item("ChestWithKey.png", 0, 0);
+        chest.isTouchable = true;
+        GameItem door = item("floor1.png", 640, 0);
+        door.isDoorToTheNextLevel = true;
+
+        GameData gameData = new GameData();
+        gameData.tiles.put("floor1", floor);
+        gameData.tiles.put("Chest", chest);
+        gameData.tiles.put("door", door);
+        TriggerRegistry registry = new TriggerRegistry(gameData);
+
+        assertEquals(1, registry.getCount(TriggerRegistry.TOUCHABLE));
+        assertSame(chest, registry.find(TriggerRegistry.TOUCHABLE, 10, 10, 53, 48, 10, 20));
+        assertNull(registry.find(TriggerRegistry.DOOR, 10, 10, 53, 48, 0, 0));
+        assertSame(door, registry.find(TriggerRegistry.DOOR, 600, 10, 53, 48, 0, 0));
+        assertNull(registry.find(TriggerRegistry.END, 10, 10, 53, 48, 0, 0));
+    }
+
+    @Test
+    public void refreshRemovesItemWhenFlagIsUnsetTest() {
+        GameItem chest = item("ChestWithKey.png", 0, 0);
+        chest.isTouchable = true;
+        GameData gameData = new GameData();
+        gameData.tiles.put("Chest", chest);
+        TriggerRegistry registry = new TriggerRegistry(gameData);
+
+        chest.isTouchable = false;
+        registry.refresh(chest);
+
+        assertEquals(0, registry.getCount(TriggerRegistry.TOUCHABLE));
+        assertNull(registry.find(TriggerRegistry.TOUCHABLE, 10, 10, 53, 48, 10, 20));
+    }
+}